@@ -0,0 +1,20 @@
+#!/bin/bash
+
+# runs the JMH benchmarks in bench/, arguments are passed on to JMH, e.g.
+#   ./bench.sh Query -p competitors=200
+# the JMH jars (jmh-core, jmh-generator-annprocess, jopt-simple, commons-math3) go in lib/jmh/
+
+# classpath, greenfoot lib and JMH
+CP="lib/"
+for dir in $(find lib -type d); do
+	CP="$CP:$dir/*";
+done;
+
+# compile, the JMH annotation processor is picked up from the classpath
+mkdir -p bin/bench
+javac -cp "$CP" -d bin/bench $(find src/ bench/ -name "*.java") || exit 1
+
+# then copy over resources, the Entities load their images
+cp -r resources/* bin/bench/
+
+java -Djava.awt.headless=true -cp "bin/bench:$CP" org.openjdk.jmh.Main $@
@@ -0,0 +1,94 @@
+package erina.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Sets up headless Erinas to run benchmarks against: idle Competitors placed around the
+ * Erina as in a match, and Nuggets scattered at random. No cycles are run, so an Erina
+ * stays as set up unless a benchmark changes it.
+ *
+ * @version 1.1
+ * @author Eric
+ */
+final class BenchArena {
+
+	private BenchArena() {}
+
+	/**
+	 * Creates a headless Erina of the default size.
+	 * @see	BenchArena#create(int, int, String, long)
+	 */
+	static Erina create(int competitors, int nuggets, long seed) {
+		return create(competitors, nuggets,
+				ErinaConfig.DEFAULT.getWidth() + "x" + ErinaConfig.DEFAULT.getHeight(), seed);
+	}
+
+	/**
+	 * Creates a headless Erina.
+	 * @param competitors	the number of Competitors, at least 2
+	 * @param nuggets	the number of Nuggets in play
+	 * @param arena	the width and height of the Erina, separated by an x, such as
+	 * {@code "20000x20000"}
+	 * @param seed	the seed of the Erina and of the locations of the Nuggets
+	 * @return	the Erina, before its first cycle
+	 */
+	static Erina create(int competitors, int nuggets, String arena, long seed) {
+		final String[] size = arena.split("x");
+		final ErinaConfig config = new ErinaConfig.Builder()
+				.headless(true)
+				.size(Integer.parseInt(size[0]), Integer.parseInt(size[1]))
+				// no cycles are run until close(), which then ends the match at once
+				.maxCycles(1)
+				.seed(seed)
+				.build();
+
+		final Erina erina = new Erina(config) {
+			@Override
+			protected List<Competitor> prepareCompetitors() {
+				final List<Competitor> list = new ArrayList<>(competitors);
+				for (int i = 0; i < competitors; i++)
+					list.add(new IdleCompetitor(this, "Idle" + i));
+				return list;
+			}
+		};
+
+		final Random random = new Random(seed);
+		for (int i = 0; i < nuggets; i++) {
+			final Nugget nugget = Nugget.create(erina, 500);
+			erina.addEntity(nugget,
+					random.nextInt(erina.getWidth()), random.nextInt(erina.getHeight()));
+		}
+
+		return erina;
+	}
+
+	/**
+	 * Plays out the match of the Erina, a single cycle, so that the threads running its
+	 * Competitors end.
+	 */
+	static void close(Erina erina) {
+		erina.run();
+	}
+
+	/** Returns the Competitors in the Erina, in the order they were added. */
+	static List<Competitor> competitorsOf(Erina erina) {
+		return new ArrayList<>(erina.getObjects(Competitor.class));
+	}
+
+
+	/**
+	 * A Competitor that never maneuvers, so that only the benchmarks move it.
+	 */
+	static final class IdleCompetitor extends Competitor {
+
+		IdleCompetitor(Erina world, String name) {
+			super(world, name);
+			setImage("images/jellybean1.png");
+		}
+
+		@Override
+		public Maneuver doManeuver() { return null; }
+	}
+}
@@ -0,0 +1,40 @@
+package erina.core;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link Logger#logLine(String, Object...)} as seen by the Erina, which only
+ * hands the message over to the writer thread. Once the writer falls behind, messages are
+ * dropped and this measures dropping them, so compare runs with the same settings.
+ *
+ * <p>The log goes to a compressed file under bin/bench, so that the writer keeps up as far
+ * as it can and the output of JMH stays readable.
+ *
+ * @version 1.0
+ * @author Eric
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {
+		"-Derina.log=file", "-Derina.log.file=bin/bench/LoggerBenchmark",
+		"-Derina.log.gzip=true", "-Derina.log.maxBytes=1073741824"
+})
+public class LoggerBenchmark {
+
+	private long cycle;
+
+	@Benchmark
+	public void logLine() {
+		Logger.logLine("Cycle: %d", cycle++);
+	}
+
+	@Benchmark
+	public void logLineConstant() {
+		Logger.logLine("Game ended");
+	}
+}
@@ -0,0 +1,60 @@
+package erina.core;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures building Maneuvers, afresh and reusing the one of a Competitor, and applying
+ * them to a Competitor.
+ *
+ * @version 1.0
+ * @author Eric
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ManeuverBenchmark {
+
+	// what every Competitor starts with
+	private static final int ENERGY = 500;
+
+	private Erina erina;
+	private Competitor competitor;
+	private Maneuver out, back;
+	private boolean isOut;
+
+	@Setup
+	public void setUp() {
+		erina = BenchArena.create(2, 0, 42);
+		competitor = BenchArena.competitorsOf(erina).get(0);
+		out = new Maneuver(competitor).turn(10).move(5);
+		back = new Maneuver(competitor).move(-5).turn(-10);
+	}
+
+	@TearDown
+	public void tearDown() {
+		BenchArena.close(erina);
+	}
+
+
+	@Benchmark
+	public Maneuver construct() {
+		return new Maneuver(competitor).turnTowards(512, 384).move(3).turn(-15).move(3);
+	}
+
+	@Benchmark
+	public Maneuver reuse() {
+		return competitor.newManeuver().turnTowards(512, 384).move(3).turn(-15).move(3);
+	}
+
+	@Benchmark
+	public void applyTo() {
+		erina.getStore().setEnergy(competitor.id, ENERGY);
+		(isOut ? back : out).applyTo(competitor);
+		isOut = !isOut;
+	}
+}
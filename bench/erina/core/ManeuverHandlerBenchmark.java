@@ -0,0 +1,72 @@
+package erina.core;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link ManeuverHandler#handle(Map)}, applying a Maneuver for every Competitor
+ * as in a cycle where all of them maneuvered. The Competitors move out and back on
+ * alternate invocations, so the Erina looks the same from one invocation to the next.
+ *
+ * @version 1.1
+ * @author Eric
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ManeuverHandlerBenchmark {
+
+	@Param({"6", "50", "200", "1000", "5000"})
+	public int competitors;
+
+	@Param({"15", "200"})
+	public int nuggets;
+
+	// the default size, and the size large matches are meant to be played in
+	@Param({"1024x720", "20000x20000"})
+	public String arena;
+
+	// what every Competitor starts with
+	private static final int ENERGY = 500;
+
+	private Erina erina;
+	private List<Competitor> list;
+	private Map<Competitor, Maneuver> out, back;
+	private boolean isOut;
+
+	@Setup
+	public void setUp() {
+		erina = BenchArena.create(competitors, nuggets, arena, 42);
+		list = BenchArena.competitorsOf(erina);
+
+		out = new LinkedHashMap<>();
+		back = new LinkedHashMap<>();
+		for (Competitor competitor : list) {
+			out.put(competitor, new Maneuver(competitor).turn(10).move(5));
+			back.put(competitor, new Maneuver(competitor).move(-5).turn(-10));
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		BenchArena.close(erina);
+	}
+
+	@Benchmark
+	public void handle() {
+		// moving costs energy, top it up so that nobody dies
+		final EntityStore store = erina.getStore();
+		for (int i = 0; i < list.size(); i++)
+			store.setEnergy(list.get(i).id, ENERGY);
+
+		ManeuverHandler.handle(isOut ? back : out);
+		isOut = !isOut;
+	}
+}
@@ -0,0 +1,85 @@
+package erina.core;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the queries Competitors and the Erina make of the world. The queries on behalf
+ * of an Entity take turns among the Competitors, so that the benchmark does not keep
+ * asking about the same spot.
+ *
+ * <p>{@code Erina.getObjectsUsing} is gone, {@link Erina#getObjects(Class)} answers from
+ * the snapshot in its place.
+ *
+ * @version 1.1
+ * @author Eric
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueryBenchmark {
+
+	@Param({"6", "50", "200", "1000", "5000"})
+	public int competitors;
+
+	@Param({"15", "200"})
+	public int nuggets;
+
+	// the default size, and the size large matches are meant to be played in
+	@Param({"1024x720", "20000x20000"})
+	public String arena;
+
+	private Erina erina;
+	private Competitor[] array;
+	private int next;
+
+	@Setup
+	public void setUp() {
+		erina = BenchArena.create(competitors, nuggets, arena, 42);
+		array = BenchArena.competitorsOf(erina).toArray(new Competitor[0]);
+	}
+
+	@TearDown
+	public void tearDown() {
+		BenchArena.close(erina);
+	}
+
+	private Competitor nextCompetitor() {
+		final Competitor competitor = array[next];
+		next = next + 1 == array.length ? 0 : next + 1;
+		return competitor;
+	}
+
+
+	@Benchmark
+	public List<Nugget> getObjects() {
+		return erina.getObjects(Nugget.class);
+	}
+
+	@Benchmark
+	public List<Competitor> getObjectsInRange() {
+		return nextCompetitor().getObjectsInRange(200, Competitor.class);
+	}
+
+	@Benchmark
+	public List<Nugget> getNuggetsInRange() {
+		return nextCompetitor().getObjectsInRange(200, Nugget.class);
+	}
+
+	@Benchmark
+	public List<Competitor> getIntersectingObjects() {
+		return nextCompetitor().getIntersectingObjects(Competitor.class);
+	}
+
+	@Benchmark
+	public List<Competitor> getIntersectingEntities() {
+		// what the Erina asks when handling collisions
+		final Competitor competitor = nextCompetitor();
+		return erina.getIntersectingEntities(competitor, Competitor.class);
+	}
+}
@@ -0,0 +1,73 @@
+package erina.core;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures updating CompetitorStats the way the Erina does in a busy cycle, publishing
+ * them at the end, once with the Erina alone and once while other threads read the same
+ * stats.
+ *
+ * @version 1.0
+ * @author Eric
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StatsBenchmark {
+
+	private final StatsTable table = new StatsTable();
+	// never read, the stats do not need an owner to count
+	private final CompetitorStats stats = new CompetitorStats(null, table);
+
+	private void cycle() {
+		stats.incrementCyclesSurvived();
+		stats.incrementTotalDistanceBy(5);
+		stats.incrementHitsInflicted();
+		stats.incrementDamageInflictedBy(3);
+		stats.incrementHitsAbsorbed();
+		stats.incrementDamageAbsorbedBy(2);
+		stats.incrementNuggetsCount();
+		stats.incrementNuggetsValueBy(500);
+		table.publish();
+	}
+
+
+	@Benchmark
+	@Group("alone")
+	public void increment() {
+		cycle();
+	}
+
+	@Benchmark
+	@Group("read")
+	@GroupThreads(1)
+	public void incrementWhileRead() {
+		cycle();
+	}
+
+	@Benchmark
+	@Group("read")
+	@GroupThreads(3)
+	public long read() {
+		return stats.getCyclesSurvived() + stats.getTotalDistance() + stats.getDamageAbsorbed();
+	}
+
+	@Benchmark
+	@Group("snapshot")
+	@GroupThreads(1)
+	public void incrementWhileSnapshot() {
+		cycle();
+	}
+
+	@Benchmark
+	@Group("snapshot")
+	@GroupThreads(3)
+	public CompetitorStats snapshot() {
+		return stats.snapshot();
+	}
+}
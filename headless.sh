@@ -0,0 +1,13 @@
+#!/bin/bash
+
+# runs a match without Greenfoot, see Erina#main
+
+# classpath, compiled stuff
+CP="bin/"
+
+# greenfoot lib
+for dir in $(find lib -type d); do
+	CP="$CP:$dir/*";
+done;
+
+java -Djava.awt.headless=true -cp "$CP" Erina $@
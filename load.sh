@@ -0,0 +1,13 @@
+#!/bin/bash
+
+# plays a headless match of synthetic Competitors, see erina.load.LoadGenerator#main
+
+# classpath, compiled stuff
+CP="bin/"
+
+# greenfoot lib
+for dir in $(find lib -type d); do
+	CP="$CP:$dir/*";
+done;
+
+java -Djava.awt.headless=true -cp "$CP" erina.load.LoadGenerator $@
@@ -1,14 +1,14 @@
 import erina.core.Competitor;
+import erina.core.ErinaConfig;
 import greenfoot.Color;
 import greenfoot.GreenfootImage;
 import greenfoot.World;
 
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.List;
 
-import static erina.core.Erina.WORLD_HEIGHT;
-import static erina.core.Erina.WORLD_WIDTH;
-
 /**
  * This class is for circumventing Greenfoot's restriction on packages. The actual Erina
  * class is {@link erina.core.Erina}.
@@ -17,7 +17,7 @@ import static erina.core.Erina.WORLD_WIDTH;
  * @see greenfoot.World
  * @see erina.core.Erina
  *
- * @version 1.1
+ * @version 1.3
  * @author Eric
  */
 public final class Erina extends World {
@@ -25,11 +25,37 @@ public final class Erina extends World {
 	private final erina.core.Erina ERINA;
 
 	public Erina() {
-		super(WORLD_WIDTH, WORLD_HEIGHT, 1);
+		super(ErinaConfig.DEFAULT.getWidth(), ErinaConfig.DEFAULT.getHeight(), 1);
 		ERINA = new ConcreteErina(this);
 	}
 
 
+	/**
+	 * Runs a single match headless, without Greenfoot.
+	 * Usage: Erina [config &lt;properties file&gt;] [&lt;setting&gt; &lt;value&gt;]...
+	 * where the settings are those of {@link ErinaConfig.Builder#set(String, String)},
+	 * for example "seed 42 record match.rec" or "width 20000 height 20000". Settings
+	 * are applied in order, so those after a properties file override it.
+	 * @see erina.core.Erina#run()
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length % 2 != 0)
+			throw new IllegalArgumentException(
+					"Usage: Erina [config <properties file>] [<setting> <value>]...");
+
+		final ErinaConfig.Builder config = new ErinaConfig.Builder().headless(true);
+
+		for (int i = 0; i < args.length; i += 2) {
+			if (args[i].equals("config"))
+				config.load(Paths.get(args[i+1]));
+			else
+				config.set(args[i], args[i+1]);
+		}
+
+		new ConcreteErina(null, config.build()).run();
+	}
+
+
 	// delegate methods to ConcreteErina
 	@Override
 	public void act() { ERINA.act(); }
@@ -51,6 +77,8 @@ public final class Erina extends World {
 
 		private ConcreteErina(World display) { super(display); }
 
+		private ConcreteErina(World display, ErinaConfig config) { super(display, config); }
+
 		@Override
 		protected List<Competitor> prepareCompetitors() {
 
@@ -1,7 +1,6 @@
 import erina.core.Competitor;
 import erina.core.Erina;
 import erina.core.Maneuver;
-import greenfoot.Greenfoot;
 
 import java.util.List;
 
@@ -100,7 +99,7 @@ public class EvanSchimberg extends Competitor {
 	public Maneuver doManeuver() {
 
 //		super.doManuever();
-		final Maneuver maneuver = new Maneuver(this);
+		final Maneuver maneuver = newManeuver();
 
 		int newNum;
 		int cycleCount = 0;
@@ -153,12 +152,12 @@ public class EvanSchimberg extends Competitor {
 				targetX = targetCompetitor.getX();                      // Get its x coordinate
 				targetY = targetCompetitor.getY();                      // Get its y coordinate
 				//legalTurnTowards(targetX, targetY);                     // Got its location, now go after 'em!
-				int variationX = Greenfoot.getRandomNumber(30) - 15;
-				int variationY = Greenfoot.getRandomNumber(30) - 15;
+				int variationX = getRandom().nextInt(30) - 15;
+				int variationY = getRandom().nextInt(30) - 15;
 
 				maneuver.turnTowards(targetX + variationX, targetY + variationY);
 
-				newDistance = Greenfoot.getRandomNumber(4);             // ...a  random distance, hopefully...
+				newDistance = getRandom().nextInt(4);                   // ...a  random distance, hopefully...
 
 				if (energyLevel > ENERGY_NORMAL_RESERVE) {
 					maneuver.move(newDistance);         // If we have enough energy, legalMove()
@@ -210,12 +209,12 @@ public class EvanSchimberg extends Competitor {
                         targetX = -targetX;
                         targetY = -targetY;
                         //legalTurnTowards(targetX, targetY);                     // Got its location, now go after 'em!
-                        int variationX = Greenfoot.getRandomNumber(30)-15;
-                        int variationY = Greenfoot.getRandomNumber(30)-15;
+                        int variationX = getRandom().nextInt(30)-15;
+                        int variationY = getRandom().nextInt(30)-15;
 
                         legalTurnTowards(targetX+variationX, targetY+variationY);
             
-                        newDistance = Greenfoot.getRandomNumber(1);             // ...a  random distance, hopefully...
+                        newDistance = getRandom().nextInt(1);                   // ...a  random distance, hopefully...
                         if (energyLevel > ENERGY_NORMAL_RESERVE)
                             legalMove(newDistance);                 
                 
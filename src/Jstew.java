@@ -2,7 +2,6 @@ import erina.core.Competitor;
 import erina.core.Erina;
 import erina.core.Maneuver;
 import erina.core.Nugget;
-import greenfoot.Greenfoot;
 //import greenfoot.GreenfootSound;
 
 import java.util.List;
@@ -70,7 +69,7 @@ public class Jstew extends Competitor {
 	@Override
 	public Maneuver doManeuver() {
 //		super.doManuever();
-		final Maneuver maneuver = new Maneuver(this);
+		final Maneuver maneuver = newManeuver();
 
 		int newNum;
 
@@ -107,10 +106,10 @@ public class Jstew extends Competitor {
 			}
 			else if (turnCountDown <= 0) {
 				// we're not at the edge, and the turning countdown has expired, so turn if we need to
-				newNum = Greenfoot.getRandomNumber(31) - 15;
+				newNum = getRandom().nextInt(31) - 15;
 				maneuver.turn(newNum);
 				//turn(newNum);
-				turnCountDown = Greenfoot.getRandomNumber(10);
+				turnCountDown = getRandom().nextInt(10);
 			}
 			betterMove += 20;
 			maneuver.move(1);
@@ -153,8 +152,8 @@ public class Jstew extends Competitor {
 			targetX = targetCompetitor.getX();                      // Get its x coordinate
 			targetY = targetCompetitor.getY();                      // Get its y coordinate
 			//legalTurnTowards(targetX, targetY);                     // Got its location, now go after 'em!
-			int variationX = Greenfoot.getRandomNumber(30) - 15;
-			int variationY = Greenfoot.getRandomNumber(30) - 15;
+			int variationX = getRandom().nextInt(30) - 15;
+			int variationY = getRandom().nextInt(30) - 15;
 
 			maneuver.turnTowards(targetX + variationX, targetY + variationY);
 
@@ -186,10 +185,10 @@ public class Jstew extends Competitor {
 			}
 			else if (turnCountDown <= 0) {
 				// we're not at the edge, and the turning countdown has expired, so turn if we need to
-				newNum = Greenfoot.getRandomNumber(31) - 15;
+				newNum = getRandom().nextInt(31) - 15;
 				maneuver.turn(newNum);
 				//turn(newNum);
-				turnCountDown = Greenfoot.getRandomNumber(10);
+				turnCountDown = getRandom().nextInt(10);
 			}
 
 			// we've figured out which direction to turn, now figure out how much to move..
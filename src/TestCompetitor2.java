@@ -1,7 +1,6 @@
 import erina.core.Competitor;
 import erina.core.Erina;
 import erina.core.Maneuver;
-import greenfoot.Greenfoot;
 
 /**
  * Class TestCompetitor2
@@ -73,7 +72,7 @@ public class TestCompetitor2 extends Competitor {
 	 */
 	@Override
 	public Maneuver doManeuver() {
-		final Maneuver maneuver = new Maneuver(this);
+		final Maneuver maneuver = newManeuver();
 
 		int newNum;
 		int worldHeight;        // need world dimensions to help with determining coordinates
@@ -96,16 +95,16 @@ public class TestCompetitor2 extends Competitor {
 		// if we're at one of the edges, turn towards some random degree...
 		if ((xNow <= EDGE_MARGIN) || (yNow <= EDGE_MARGIN) || (xNow >= worldWidth - EDGE_MARGIN) || (yNow >= worldHeight - EDGE_MARGIN)) {
 
-			newNum = Greenfoot.getRandomNumber(360);    // some random degrees...
+			newNum = getRandom().nextInt(360);          // some random degrees...
 
 
 			maneuver.turn(newNum);
 
 		}
 		else if (turnCountDown <= 0) {
-			newNum = Greenfoot.getRandomNumber(181) - 90;  // within 90 degrees left or right
+			newNum = getRandom().nextInt(181) - 90;        // within 90 degrees left or right
 			maneuver.turn(newNum);
-			turnCountDown = Greenfoot.getRandomNumber(10);  // renew turn counter
+			turnCountDown = getRandom().nextInt(10);        // renew turn counter
 		}
 
 		maneuver.move(moveDistance);
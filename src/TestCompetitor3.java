@@ -1,7 +1,6 @@
 import erina.core.Competitor;
 import erina.core.Erina;
 import erina.core.Maneuver;
-import greenfoot.Greenfoot;
 
 import java.util.List;
 
@@ -80,7 +79,7 @@ public class TestCompetitor3 extends Competitor {
 	public Maneuver doManeuver() {
 //		super.doManuever();
 
-		final Maneuver maneuver = new Maneuver(this);
+		final Maneuver maneuver = newManeuver();
 
 		int newNum;
 
@@ -111,12 +110,12 @@ public class TestCompetitor3 extends Competitor {
 			targetX = targetCompetitor.getX();                      // Get its x coordinate
 			targetY = targetCompetitor.getY();                      // Get its y coordinate
 			//legalTurnTowards(targetX, targetY);                     // Got its location, now go after 'em!
-			int variationX = Greenfoot.getRandomNumber(30) - 15;
-			int variationY = Greenfoot.getRandomNumber(30) - 15;
+			int variationX = getRandom().nextInt(30) - 15;
+			int variationY = getRandom().nextInt(30) - 15;
 
 			maneuver.turnTowards(targetX + variationX, targetY + variationY);
 
-			newDistance = Greenfoot.getRandomNumber(6);             // ...a  random distance, hopefully...
+			newDistance = getRandom().nextInt(6);                   // ...a  random distance, hopefully...
 			if (getEnergyLevel() > ENERGY_NORMAL_RESERVE)
 				maneuver.move(newDistance);                             // If we have enough energy, legalMove()
 			// will allow it.  Otherwise we have
@@ -144,10 +143,10 @@ public class TestCompetitor3 extends Competitor {
 			}
 			else if (turnCountDown <= 0) {
 				// we're not at the edge, and the turning countdown has expired, so turn if we need to
-				newNum = Greenfoot.getRandomNumber(31) - 15;
+				newNum = getRandom().nextInt(31) - 15;
 				maneuver.turn(newNum);
 				//turn(newNum);
-				turnCountDown = Greenfoot.getRandomNumber(10);
+				turnCountDown = getRandom().nextInt(10);
 			}
 
 			// we've figured out which direction to turn, now figure out how much to move..
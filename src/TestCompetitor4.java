@@ -1,7 +1,6 @@
 import erina.core.Competitor;
 import erina.core.Erina;
 import erina.core.Maneuver;
-import greenfoot.Greenfoot;
 
 import java.util.List;
 
@@ -78,7 +77,7 @@ public class TestCompetitor4 extends Competitor {
 	public Maneuver doManeuver() {
 //		super.doManeuver();
 
-		final Maneuver maneuver = new Maneuver(this);
+		final Maneuver maneuver = newManeuver();
 
 		int newNum;
 
@@ -113,7 +112,7 @@ public class TestCompetitor4 extends Competitor {
 			// move to the middle...
 			//legalTurnTowards((worldWidth/2), (worldHeight/2));
 			maneuver.turnTowards((worldWidth / 2), (worldHeight / 2));
-			newDistance = Greenfoot.getRandomNumber(100);     // get a new distance
+			newDistance = getRandom().nextInt(100);           // get a new distance
 			maneuver.move(newDistance);
 		}
 		else if (listInRange.size() > 0) {
@@ -139,16 +138,16 @@ public class TestCompetitor4 extends Competitor {
 			if (newY > worldHeight - 50) newY = worldHeight - 50;
 
 			maneuver.turnTowards(newX, newY);
-			newDistance = Greenfoot.getRandomNumber(10);     // get a new distance
+			newDistance = getRandom().nextInt(10);           // get a new distance
 			maneuver.move(newDistance);
 
 		}
 		else if (turnCountDown <= 0) {
-			newNum = Greenfoot.getRandomNumber(181) - 30;  // within 90 degrees left or right
+			newNum = getRandom().nextInt(181) - 30;        // within 90 degrees left or right
 			maneuver.turn(newNum);
 			//turn(newNum);
-			turnCountDown = Greenfoot.getRandomNumber(10);// renew turn counter
-			newDistance = Greenfoot.getRandomNumber(10);     // get a new distance
+			turnCountDown = getRandom().nextInt(10);// renew turn counter
+			newDistance = getRandom().nextInt(10);           // get a new distance
 			maneuver.move(newDistance);
 		}
 		// Turns are complete, now we can move in the direction we turned...
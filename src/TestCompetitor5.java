@@ -1,7 +1,6 @@
 import erina.core.Competitor;
 import erina.core.Erina;
 import erina.core.Maneuver;
-import greenfoot.Greenfoot;
 
 import java.util.List;
 
@@ -81,7 +80,7 @@ public class TestCompetitor5 extends Competitor {
 	public Maneuver doManeuver() {
 //		super.doManuever();
 
-		final Maneuver maneuver = new Maneuver(this);
+		final Maneuver maneuver = newManeuver();
 
 		int newNum;
 
@@ -129,7 +128,7 @@ public class TestCompetitor5 extends Competitor {
 
 			newDistance = (int) (Math.sqrt((dx * dx) + (dy * dy)));
 
-			//newDistance = Greenfoot.getRandomNumber(6);             // ...a  random distance, hopefully...
+			//newDistance = getRandom().nextInt(6);                   // ...a  random distance, hopefully...
 			maneuver.move(newDistance);                                 // If we have enough energy, legalMove()
 			// will allow it.  Otherwise we have
 			// to wait another cycle or more...
@@ -164,7 +163,7 @@ public class TestCompetitor5 extends Competitor {
 			}
 			else if (turnCountDown <= 0) {
 				// we're not at the edge, and the turning countdown has expired, so turn if we need to
-				newNum = Greenfoot.getRandomNumber(181) - 90;
+				newNum = getRandom().nextInt(181) - 90;
 				maneuver.turn(newNum);
 				//turn(newNum);
 				if (getEnergyLevel() > ENERGY_NORMAL_RESERVE)
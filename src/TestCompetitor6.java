@@ -2,7 +2,6 @@ import erina.core.Competitor;
 import erina.core.Erina;
 import erina.core.Maneuver;
 import erina.core.Nugget;
-import greenfoot.Greenfoot;
 
 import java.util.List;
 
@@ -85,7 +84,7 @@ public class TestCompetitor6 extends Competitor {
 	public Maneuver doManeuver() {
 //		super.doManuever();
 
-		final Maneuver maneuver = new Maneuver(this);
+		final Maneuver maneuver = newManeuver();
 
 		int newNum;
 
@@ -124,12 +123,12 @@ public class TestCompetitor6 extends Competitor {
 			targetX = targetCompetitorNugget.getX();                      // Get its x coordinate
 			targetY = targetCompetitorNugget.getY();                      // Get its y coordinate
 			//legalTurnTowards(targetX, targetY);                     // Got its location, now go after 'em!
-			int variationX = Greenfoot.getRandomNumber(30) - 15;
-			int variationY = Greenfoot.getRandomNumber(30) - 15;
+			int variationX = getRandom().nextInt(30) - 15;
+			int variationY = getRandom().nextInt(30) - 15;
 
 			maneuver.turnTowards(targetX + variationX, targetY + variationY);
 
-			newDistance = Greenfoot.getRandomNumber(6);             // ...a  random distance, hopefully...
+			newDistance = getRandom().nextInt(6);                   // ...a  random distance, hopefully...
 			if (getEnergyLevel() > ENERGY_NORMAL_RESERVE)
 				maneuver.move(newDistance);                             // If we have enough energy, legalMove()
 			// will allow it.  Otherwise we have
@@ -161,8 +160,8 @@ public class TestCompetitor6 extends Competitor {
 
 			if (isTouching(Competitor.class) == true) {
 				// get away for awhile
-				//int variationX = Greenfoot.getRandomNumber(90)-45;
-				//int variationY = Greenfoot.getRandomNumber(90)-45;
+				//int variationX = getRandom().nextInt(90)-45;
+				//int variationY = getRandom().nextInt(90)-45;
 				//legalTurnTowards(targetX+300, targetY+300);
 				//legalTurnTowards((getRotation() + 360) - 180);
 //				setRotation((getRotation() + 360) - 180);
@@ -170,14 +169,14 @@ public class TestCompetitor6 extends Competitor {
 			}
 			else {
 
-				int variationX = Greenfoot.getRandomNumber(30) - 15;
-				int variationY = Greenfoot.getRandomNumber(30) - 15;
+				int variationX = getRandom().nextInt(30) - 15;
+				int variationY = getRandom().nextInt(30) - 15;
 
 				maneuver.turnTowards(targetX + variationX, targetY + variationY);
 
 
 			}
-			newDistance = Greenfoot.getRandomNumber(6);             // ...a  random distance, hopefully...            if (energyLevel > ENERGY_NORMAL_RESERVE)
+			newDistance = getRandom().nextInt(6);                   // ...a  random distance, hopefully...            if (energyLevel > ENERGY_NORMAL_RESERVE)
 			maneuver.move(newDistance);                             // If we have enough energy, legalMove()
 			// will allow it.  Otherwise we have
 
@@ -204,10 +203,10 @@ public class TestCompetitor6 extends Competitor {
 			}
 			else if (turnCountDown <= 0) {
 				// we're not at the edge, and the turning countdown has expired, so turn if we need to
-				newNum = Greenfoot.getRandomNumber(31) - 15;
+				newNum = getRandom().nextInt(31) - 15;
 				maneuver.turn(newNum);
 				//turn(newNum);
-				turnCountDown = Greenfoot.getRandomNumber(10);
+				turnCountDown = getRandom().nextInt(10);
 			}
 
 			// we've figured out which direction to turn, now figure out how much to move..
@@ -2,7 +2,6 @@ import erina.core.Competitor;
 import erina.core.Erina;
 import erina.core.Maneuver;
 import erina.core.Nugget;
-import greenfoot.Greenfoot;
 
 import java.util.List;
 
@@ -85,7 +84,7 @@ public class TestCompetitor7 extends Competitor {
 	public Maneuver doManeuver() {
 // 		super.doManuever();
 
-		final Maneuver maneuver = new Maneuver(this);
+		final Maneuver maneuver = newManeuver();
 
 
 		int newNum;
@@ -125,12 +124,12 @@ public class TestCompetitor7 extends Competitor {
 			targetX = targetCompetitorNugget.getX();                      // Get its x coordinate
 			targetY = targetCompetitorNugget.getY();                      // Get its y coordinate
 			//legalTurnTowards(targetX, targetY);                     // Got its location, now go after 'em!
-			int variationX = Greenfoot.getRandomNumber(30) - 15;
-			int variationY = Greenfoot.getRandomNumber(30) - 15;
+			int variationX = getRandom().nextInt(30) - 15;
+			int variationY = getRandom().nextInt(30) - 15;
 
 			maneuver.turnTowards(targetX + variationX, targetY + variationY);
 
-			newDistance = Greenfoot.getRandomNumber(6);             // ...a  random distance, hopefully...
+			newDistance = getRandom().nextInt(6);                   // ...a  random distance, hopefully...
 			if (getEnergyLevel() > ENERGY_NORMAL_RESERVE)
 				maneuver.move(newDistance);                             // If we have enough energy, legalMove()
 			// will allow it.  Otherwise we have
@@ -165,7 +164,7 @@ public class TestCompetitor7 extends Competitor {
 
 			newDistance = (int) (Math.sqrt((dx * dx) + (dy * dy)));
 			int newWhole = newDistance / 2;
-			//newDistance = Greenfoot.getRandomNumber(6);             // ...a  random distance, hopefully...
+			//newDistance = getRandom().nextInt(6);                   // ...a  random distance, hopefully...
 			// move the minimum of the newDistance or half our remaining energy-reserve
 
 			if (((getEnergyLevel() - ENERGY_NORMAL_RESERVE) / 2) > newDistance) {
@@ -206,10 +205,10 @@ public class TestCompetitor7 extends Competitor {
 			}
 			else if (turnCountDown <= 0) {
 				// we're not at the edge, and the turning countdown has expired, so turn if we need to
-				newNum = Greenfoot.getRandomNumber(31) - 15;
+				newNum = getRandom().nextInt(31) - 15;
 				maneuver.turn(newNum);
 				//turn(newNum);
-				turnCountDown = Greenfoot.getRandomNumber(10);
+				turnCountDown = getRandom().nextInt(10);
 			}
 
 			// we've figured out which direction to turn, now figure out how much to move..
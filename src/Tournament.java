@@ -0,0 +1,73 @@
+import erina.core.ErinaConfig;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * Plays a tournament between the Competitors in src/. The actual tournament runner is
+ * {@link erina.core.Tournament}; this class only registers the Competitors, which cannot
+ * be referenced from a package.
+ *
+ * <p>Usage:
+ * <pre>
+ *   Tournament round-robin &lt;matchSize&gt; [config &lt;properties file&gt;] [&lt;setting&gt; &lt;value&gt;]...
+ *   Tournament random &lt;matches&gt; &lt;matchSize&gt; [config &lt;properties file&gt;] [&lt;setting&gt; &lt;value&gt;]...
+ * </pre>
+ * where the settings are those of {@link ErinaConfig.Builder#set(String, String)} and
+ * apply to every match, for example "random 200 4 seed 42 maxCycles 5000". The seed is
+ * the seed of the tournament.
+ *
+ * @see erina.core.Tournament
+ *
+ * @version 1.1
+ * @author Eric
+ */
+public final class Tournament {
+
+	private Tournament() {}
+
+	public static void main(String[] args) throws InterruptedException, IOException {
+		// the settings follow the kind of tournament and its numbers
+		final int settings;
+		if (args.length >= 2 && args[0].equals("round-robin"))
+			settings = 2;
+		else if (args.length >= 3 && args[0].equals("random"))
+			settings = 3;
+		else
+			settings = -1;
+
+		if (settings < 0 || (args.length - settings) % 2 != 0) {
+			System.err.println("Usage: Tournament round-robin <matchSize> [<setting> <value>]...");
+			System.err.println("       Tournament random <matches> <matchSize> [<setting> <value>]...");
+			return;
+		}
+
+		final ErinaConfig.Builder config = new ErinaConfig.Builder().headless(true);
+		for (int i = settings; i < args.length; i += 2) {
+			if (args[i].equals("config"))
+				config.load(Paths.get(args[i+1]));
+			else
+				config.set(args[i], args[i+1]);
+		}
+
+		final erina.core.Tournament tournament = new erina.core.Tournament(config.build())
+				// add and remove competitors here
+				.addEntrant("TC_2", TestCompetitor2::new)
+				.addEntrant("TC_3", TestCompetitor3::new)
+				.addEntrant("TC_4", TestCompetitor4::new)
+				.addEntrant("TC_5", TestCompetitor5::new)
+				.addEntrant("TC_6", TestCompetitor6::new)
+				.addEntrant("TC_7", TestCompetitor7::new)
+				.addEntrant("Evan", EvanSchimberg::new)
+				.addEntrant("Jstew", Jstew::new);
+
+		final erina.core.Tournament.Results results;
+
+		if (args[0].equals("round-robin"))
+			results = tournament.playRoundRobin(Integer.parseInt(args[1]));
+		else
+			results = tournament.playRandom(Integer.parseInt(args[1]), Integer.parseInt(args[2]));
+
+		System.out.println(results);
+	}
+}
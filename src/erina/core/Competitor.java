@@ -30,13 +30,15 @@ public abstract class Competitor
 
 	private static final int INITIAL_ENERGY_LEVEL = 500;
 
-	/** Amount of energy this competitor has. */
-	private int energyLevel = INITIAL_ENERGY_LEVEL;
-
 	private final CompetitorStats stats;
 
 	private final NameTag nameTag;
 
+	private final Random random;
+
+	// handed out by newManeuver(), applied before this Competitor is asked for the next
+	private final Maneuver maneuver = new Maneuver(0, 0, 0);
+
 
 	/**
 	 * Gets a CompetitorStats object holding the statistics about this Competitor.
@@ -54,12 +56,41 @@ public abstract class Competitor
 	 */
 	public Competitor(Erina world, String name) {
 		super(world);
-		stats = new CompetitorStats(this);
+		// the energy level is kept in the EntityStore
+		world.getStore().setEnergy(id, INITIAL_ENERGY_LEVEL);
+		stats = new CompetitorStats(this, world.getStatsTable());
 		this.name = name;
-		nameTag = new NameTag(name);
+		// headless Erinas do not render, no need for a NameTag
+		nameTag = world.isHeadless() ? null : new NameTag(name);
+		random = world.newRandom(id);
 	}
 
 
+	/**
+	 * Gets the random number generator of this Competitor. Use it instead of
+	 * {@code Math.random()} or {@code Greenfoot.getRandomNumber(int)}: it is seeded from
+	 * the seed of the match, so the same line-up with the same seed draws the same
+	 * numbers, and no other Competitor draws from it.
+	 * @return	the Random of this Competitor
+	 * @see	Erina#getSeed()
+	 */
+	protected final Random getRandom() { return random; }
+
+	/**
+	 * Gets an empty Maneuver starting at the location and in the direction of this
+	 * Competitor. The same Maneuver object is reused every time, so no garbage is made
+	 * from cycle to cycle; a Maneuver returned from {@link Competitor#doManeuver()} must
+	 * not be kept or changed afterwards.
+	 * @return	the Maneuver of this Competitor, emptied
+	 */
+	protected final Maneuver newManeuver() {
+		return maneuver.reset(getX(), getY(), getDirection());
+	}
+
+	/** Returns the Maneuver handed out by {@link Competitor#newManeuver()}. */
+	final Maneuver getReusableManeuver() { return maneuver; }
+
+
 	/**
 	 * Modifies the energy level of this Competitor by the specified amount. Negative
 	 * values can be used to remove energy.
@@ -67,14 +98,17 @@ public abstract class Competitor
 	 * @return	current energy level after modification
 	 */
 	final int changeEnergy(int amount) {
-		return energyLevel += amount;
+		return getErina().getStore().changeEnergy(id, amount);
 	}
 
 	/**
 	 * Gets the amount of energy this Competitor currently has.
 	 * @return	the current energy level
 	 */
-	public final int getEnergyLevel() { return energyLevel; }
+	public final int getEnergyLevel() { return getErina().getSnapshot().getEnergy(id); }
+
+	/** Returns the current energy level, for use by the Erina. */
+	final int getLiveEnergyLevel() { return getErina().getStore().getEnergy(id); }
 
 
 	/**
@@ -83,7 +117,7 @@ public abstract class Competitor
 	 * @param file	the path to the sound file
 	 */
 	protected final void setKillSound(String file) {
-		killSound = (file == null) ? null : new GreenfootSound(file);
+		killSound = loadSound(file);
 	}
 
 	/** Plays the kill sound if it exists and is not already playing. */
@@ -95,7 +129,7 @@ public abstract class Competitor
 	 * @param file	the path to the sound file
 	 */
 	protected final void setDeathSound(String file) {
-		deathSound = (file == null) ? null : new GreenfootSound(file);
+		deathSound = loadSound(file);
 	}
 
 	/** Plays the death sound if it exists and is not already playing. */
@@ -107,7 +141,7 @@ public abstract class Competitor
 	 * @param file	the path to the sound file
 	 */
 	protected final void setHorrorSound(String file) {
-		horrorSound = (file == null) ? null : new GreenfootSound(file);
+		horrorSound = loadSound(file);
 	}
 
 	/** Plays the horror sound if it exists and is not already playing. */
@@ -119,17 +153,29 @@ public abstract class Competitor
 	 * @param file	the path to the sound file
 	 */
 	protected final void setSadisticSound(String file) {
-		sadisticSound = (file == null) ? null : new GreenfootSound(file);
+		sadisticSound = loadSound(file);
 	}
 
 	/** Plays the sadistic sound if it exists and is not already playing. */
 	public final void playSadisticSound() { Erina.tryPlaySound(sadisticSound); }
 
 
+	/**
+	 * Creates a GreenfootSound from the specified file. Returns null if the file is null
+	 * or if the Erina is headless.
+	 */
+	private GreenfootSound loadSound(String file) {
+		return (file == null || getErina().isHeadless()) ? null : new GreenfootSound(file);
+	}
+
+
 	/** Returns the identifier of this Competitor. */
 	public final String getName() { return name; }
 
-	/** Returns the NameTag associated with this Competitor. */
+	/**
+	 * Returns the NameTag associated with this Competitor, or null if the Erina is
+	 * headless.
+	 */
 	final NameTag getNameTag() { return nameTag; }
 
 
@@ -146,6 +192,8 @@ public abstract class Competitor
 		getStats().incrementNuggets(nugget);
 		playSadisticSound();
 
+		getWorld().recordEvent(EventLog.NUGGET_CONSUMED, this, nugget, nugget.getNuggetValue());
+
 		Logger.logLine("[%5d] Nugget Consumption: %15s consumed %15s",
 				getWorld().getCurrentCycle(), this, nugget);
 	}
@@ -162,6 +210,9 @@ public abstract class Competitor
 		getStats().incrementSauces(sauce, multiplier);
 		playSadisticSound();
 
+		getWorld().recordEvent(EventLog.SAUCE_CONSUMED, this, sauce,
+				sauce.getSauceValue() * multiplier);
+
 		Logger.logLine("[%5d] Sauce Consumption: %15s consumed %15s with multiplier of %3d",
 				getWorld().getCurrentCycle(), this, sauce, multiplier);
 	}
@@ -183,6 +234,8 @@ public abstract class Competitor
 		getStats().setLastAttacker(attacker);
 		playHorrorSound();
 
+		getWorld().recordEvent(EventLog.DAMAGE, this, attacker, damage);
+
 		Logger.logLine("[%5d] Collision: %15s took %d damage from %15s",
 				getWorld().getCurrentCycle(), this, damage, attacker);
 	}
@@ -210,6 +263,9 @@ public abstract class Competitor
 		return getEnergyLevel() < 0;
 	}
 
+	/** Checks if this Competitor is dead right now, for use by the Erina. */
+	final boolean isDeadNow() { return getLiveEnergyLevel() < 0; }
+
 	/**
 	 * Signals the death of this Competitor. Removes this Competitor from the Erina and
 	 * plays the death sound if defined. This method logs the death message.
@@ -221,6 +277,8 @@ public abstract class Competitor
 		attacker.kill(this);
 		playDeathSound();
 
+		getWorld().recordEvent(EventLog.DEATH, this, attacker, 0);
+
 		Logger.logLine("[%5d] Death: %15s is killed by %15s",
 				getWorld().getCurrentCycle(), this, attacker);
 	}
@@ -232,7 +290,7 @@ public abstract class Competitor
 	 * @return	true if this Competitor is dead, false otherwise
 	 */
 	final boolean checkDeath(Competitor attacker) {
-		final boolean isDead = isDead();
+		final boolean isDead = isDeadNow();
 		if (isDead)
 			die(attacker);
 		return isDead;
@@ -256,23 +314,36 @@ public abstract class Competitor
 
 	////////////////////
 	// collision state stuff
+	// linked sets, so that collisions are resolved in the same order every time a match
+	// is replayed
 
 	/** Competitors intersecting with this Competitor in the previous update. */
-	private final Set<Competitor> previousContacts = new HashSet<>();
+	private final Set<Competitor> previousContacts = new LinkedHashSet<>();
 	/** Competitors currently intersecting with this Competitor. */
-	private final Set<Competitor> currentContacts = new HashSet<>();
+	private final Set<Competitor> currentContacts = new LinkedHashSet<>();
 
 	/**
 	 * Updates the contact states of this Competitor.
 	 */
 	final void updateContacts() {
-		if (isDead()) return;
+		if (isDeadNow()) return;
 
 		previousContacts.clear();
 		previousContacts.addAll(currentContacts);
 
 		currentContacts.clear();
-		currentContacts.addAll(getIntersectingObjects(Competitor.class));
+		currentContacts.addAll(getWorld().getIntersectingEntities(this, Competitor.class));
+	}
+
+	/**
+	 * Returns the Competitors intersecting with this Competitor before or after the
+	 * previous call of {@link Competitor#updateContacts()}. If this Competitor moved in
+	 * between, these are the only Competitors whose contacts may have changed.
+	 */
+	final Set<Competitor> getAffectedContacts() {
+		final Set<Competitor> affected = new LinkedHashSet<>(previousContacts);
+		affected.addAll(currentContacts);
+		return affected;
 	}
 
 	/**
@@ -311,17 +382,18 @@ class CompetitorActor extends EntityActor<Competitor, CompetitorActor> {
 	}
 
 	@Override
-	public void move(int distance) {
-		super.move(distance);
+	void sync(EntityStore store) {
+		super.sync(store);
 
 		final Competitor competitor = getEntity();
 		final NameTag nameTag = getEntity().getNameTag();
+		if (nameTag == null) return;	// headless
 		final Pair<Integer, Integer> offset = Erina.getNameTagOffset(competitor);
 
 		// make the NameTag follow
 		nameTag.setLocation(
-				competitor.getX() + offset.getKey(),
-				competitor.getY() - offset.getValue()
+				competitor.getLiveX() + offset.getKey(),
+				competitor.getLiveY() - offset.getValue()
 		);
 	}
 }
@@ -3,36 +3,42 @@ package erina.core;
 /**
  * A class that holds some statistics about a Competitor.
  *
- * @version 1.0
+ * <p>The counters live in the {@link StatsTable} of the Erina, in the row of the
+ * Competitor. They are only modified by the thread running the Erina, without locking,
+ * and the getters return the values published at the end of the last cycle, so reading
+ * them from any thread is safe. Use {@link CompetitorStats#snapshot()} to read all
+ * counters as of the same cycle. The exception are the LatencyHistograms, which are
+ * recorded on the threads fetching Maneuvers and do their own locking.
+ *
+ * @version 1.2
  * @author Eric
  */
 public final class CompetitorStats {
 
 	private final Competitor owner;
 	private volatile Competitor lastAttacker, lastVictim;
-	private volatile int kills, totalDistance, cycles, score, nuggetsCount, nuggetsValue,
-			saucesCount, saucesValue, hitsInflicted, hitsAbsorbed, damageInflicted,
-			damageAbsorbed;
+
+	private final StatsTable table;
+	private final int row;
+
+	// recorded by the ManeuverFetcher
+	private final LatencyHistogram computeTimes, turnaroundTimes;
 
 
 	/**
-	 * Creates a new CompetitorStats with all values null or 0.
+	 * Creates a new CompetitorStats with all values null or 0, in a new row of the
+	 * specified StatsTable.
 	 */
-	CompetitorStats(Competitor owner) {
-		this(owner,
-				null, null,
-				0,
-				0,
-				0,
-				0,
-				0, 0,
-				0, 0,
-				0, 0,
-				0 , 0);
+	CompetitorStats(Competitor owner, StatsTable table) {
+		this.owner = owner;
+		this.table = table;
+		row = table.addRow(owner == null ? -1 : owner.id);
+		computeTimes = new LatencyHistogram();
+		turnaroundTimes = new LatencyHistogram();
 	}
 
 	/**
-	 * Creates a new CompetitorStats with the specified values.
+	 * Creates a new CompetitorStats with the specified values, in a StatsTable of its own.
 	 * It is recommended to NOT use this constructor as the long argument list is error
 	 * prone.
 	 */
@@ -47,45 +53,54 @@ public final class CompetitorStats {
 					int saucesCount, int saucesValue,
 					int hitsInflicted, int hitsAbsorbed,
 					int damageInflicted, int damageAbsorbed) {
-		this.owner = owner;
+		this(owner, new StatsTable());
 		this.lastAttacker = lastAttacker;
 		this.lastVictim = lastVictim;
-		this.kills = kills;
-		this.totalDistance = totalDistance;
-		this.cycles = cycles;
-		this.score = score;
-		this.nuggetsCount = nuggetsCount;
-		this.nuggetsValue = nuggetsValue;
-		this.saucesCount = saucesCount;
-		this.saucesValue = saucesValue;
-		this.hitsInflicted = hitsInflicted;
-		this.hitsAbsorbed = hitsAbsorbed;
-		this.damageInflicted = damageInflicted;
-		this.damageAbsorbed = damageAbsorbed;
+		setKills(kills);
+		setTotalDistance(totalDistance);
+		setCyclesSurvived(cycles);
+		setScore(score);
+		setNuggetsCount(nuggetsCount);
+		setNuggetsValue(nuggetsValue);
+		setSaucesCount(saucesCount);
+		setSaucesValue(saucesValue);
+		setHitsInflicted(hitsInflicted);
+		setHitsAbsorbed(hitsAbsorbed);
+		setDamageInflicted(damageInflicted);
+		setDamageAbsorbed(damageAbsorbed);
+		table.publish();
 	}
 
 
 	/**
-	 * Creates a CompetitorStats by copying values from the specified object.
+	 * Creates a CompetitorStats by copying values from the specified object, in a
+	 * StatsTable of its own. The counters are copied as published, all from the same
+	 * cycle.
 	 */
 	CompetitorStats(CompetitorStats stats) {
 		owner = stats.getOwner();
 		lastAttacker = stats.getLastAttacker();
 		lastVictim = stats.getLastVictim();
-		kills = stats.getKills();
-		totalDistance = stats.getTotalDistance();
-		cycles = stats.getCyclesSurvived();
-		score = stats.getScore();
-		nuggetsCount = stats.getNuggetsCount();
-		nuggetsValue = stats.getNuggetsValue();
-		saucesCount = stats.getSaucesCount();
-		saucesValue = stats.getSaucesValue();
-		hitsInflicted = stats.getHitsInflicted();
-		hitsAbsorbed = stats.getHitsAbsorbed();
-		damageInflicted = stats.getDamageInflicted();
-		damageAbsorbed = stats.getDamageAbsorbed();
+
+		table = new StatsTable();
+		row = table.addRow(owner == null ? -1 : owner.id);
+		final long[] values = new long[StatsTable.COUNTERS];
+		stats.table.readRow(stats.row, values);
+		for (int i = 0; i < StatsTable.COUNTERS; i++)
+			table.set(i, row, values[i]);
+		table.publish();
+
+		computeTimes = new LatencyHistogram(stats.getComputeTimes());
+		turnaroundTimes = new LatencyHistogram(stats.getTurnaroundTimes());
 	}
 
+	/**
+	 * Returns a copy of this CompetitorStats that does not change, with all counters as of
+	 * the same cycle.
+	 * @return	the copy
+	 */
+	public CompetitorStats snapshot() { return new CompetitorStats(this); }
+
 
 	/**
 	 * Returns the Competitor associated with this CompetitorStats object.
@@ -105,64 +120,88 @@ public final class CompetitorStats {
 	/**
 	 * Returns the number of hits this Competitor has inflicted.
 	 */
-	public int getHitsInflicted() { return hitsInflicted; }
+	public int getHitsInflicted() { return get(StatsTable.HITS_INFLICTED); }
 
 	/**
 	 * Returns the number of hits this Competitor has absorbed.
 	 */
-	public int getHitsAbsorbed() { return hitsAbsorbed; }
+	public int getHitsAbsorbed() { return get(StatsTable.HITS_ABSORBED); }
 
 	/**
 	 * Returns the amount of damage this Competitor has inflicted on others.
 	 */
-	public int getDamageInflicted() { return damageInflicted; }
+	public int getDamageInflicted() { return get(StatsTable.DAMAGE_INFLICTED); }
 
 	/**
 	 * Returns the amount of damage this Competitor has absorbed from others.
 	 */
-	public int getDamageAbsorbed() { return damageAbsorbed; }
+	public int getDamageAbsorbed() { return get(StatsTable.DAMAGE_ABSORBED); }
 
 	/**
 	 * Returns the number of kills this Competitor completed.
 	 */
-	public int getKills() { return kills; }
+	public int getKills() { return get(StatsTable.KILLS); }
 
 	/**
 	 * Returns the total distance this Competitor has traveled.
 	 */
-	public int getTotalDistance() { return totalDistance; }
+	public int getTotalDistance() { return get(StatsTable.TOTAL_DISTANCE); }
 
 	/**
 	 * Returns the number of cycles this Competitor has survived.
 	 */
-	public int getCyclesSurvived() { return cycles; }
+	public int getCyclesSurvived() { return get(StatsTable.CYCLES); }
 
 	/**
 	 * Returns the score of this Competitor.
 	 * Note that scores are not updated until the end of game.
 	 */
-	int getScore() { return score; }
+	int getScore() { return get(StatsTable.SCORE); }
 
 	/**
 	 * Returns the number of Nuggets this Competitor has consumed.
 	 */
-	public int getNuggetsCount() { return nuggetsCount; }
+	public int getNuggetsCount() { return get(StatsTable.NUGGETS_COUNT); }
 
 	/**
 	 * Returns the total value of the Nuggets this Competitor has consumed.
 	 */
-	public int getNuggetsValue() { return nuggetsValue; }
+	public int getNuggetsValue() { return get(StatsTable.NUGGETS_VALUE); }
 
 	/**
 	 * Returns the number of Sauces this Competitor has consumed.
 	 */
-	public int getSaucesCount() { return saucesCount; }
+	public int getSaucesCount() { return get(StatsTable.SAUCES_COUNT); }
 
 	/**
 	 * Returns the total value of energy this Competitor has acquired from consumed
 	 * Sauces.
 	 */
-	public int getSaucesValue() { return saucesValue; }
+	public int getSaucesValue() { return get(StatsTable.SAUCES_VALUE); }
+
+	/**
+	 * Returns how long each call of doManeuver() of this Competitor took.
+	 */
+	public LatencyHistogram getComputeTimes() { return computeTimes; }
+
+	/**
+	 * Returns how long each Maneuver of this Competitor took from the moment it was asked
+	 * for until it was ready, including any wait for a thread to run on.
+	 */
+	public LatencyHistogram getTurnaroundTimes() { return turnaroundTimes; }
+
+	/**
+	 * Returns the number of cycles in which the Maneuver of this Competitor was not
+	 * ready when the Erina collected Maneuvers.
+	 */
+	public int getMissedCycles() { return get(StatsTable.MISSED_CYCLES); }
+
+	/**
+	 * Returns the number of calls of doManeuver() cancelled for running over budget.
+	 * @see	ErinaConfig#getTimeBudget()
+	 * @see	ErinaConfig#getCycleBudget()
+	 */
+	public int getCancelledCalls() { return get(StatsTable.CANCELLED_CALLS); }
 
 
 	void setLastAttacker(Competitor lastAttacker) {
@@ -173,52 +212,40 @@ public final class CompetitorStats {
 		this.lastVictim = lastVictim;
 	}
 
-	void setKills(int kills) {
-		this.kills = kills;
-	}
+	void setKills(int kills) { table.set(StatsTable.KILLS, row, kills); }
 
-	synchronized void incrementKills() { kills++; }
+	void incrementKills() { table.add(StatsTable.KILLS, row, 1); }
 
-	void setTotalDistance(int totalDistance) {
-		this.totalDistance = totalDistance;
-	}
+	void setTotalDistance(int totalDistance) { table.set(StatsTable.TOTAL_DISTANCE, row, totalDistance); }
 
-	synchronized void incrementTotalDistanceBy(int increment) {
-		totalDistance += increment;
+	void incrementTotalDistanceBy(int increment) {
+		table.add(StatsTable.TOTAL_DISTANCE, row, increment);
 	}
 
-	void setCyclesSurvived(int cycles) {
-		this.cycles = cycles;
-	}
+	void setCyclesSurvived(int cycles) { table.set(StatsTable.CYCLES, row, cycles); }
 
-	synchronized void incrementCyclesSurvived() { cycles++; }
+	void incrementCyclesSurvived() { table.add(StatsTable.CYCLES, row, 1); }
 
-	void setScore(int score) {
-		this.score = score;
-	}
+	void setScore(int score) { table.set(StatsTable.SCORE, row, score); }
 
 
 	/**
 	 * Updates stats for the consumption of the specified Nugget.
 	 */
-	synchronized void incrementNuggets(Nugget nugget) {
+	void incrementNuggets(Nugget nugget) {
 		incrementNuggetsCount();
 		incrementNuggetsValueBy(nugget.getNuggetValue());
 	}
 
 
-	void setNuggetsCount(int nuggetsCount) {
-		this.nuggetsCount = nuggetsCount;
-	}
+	void setNuggetsCount(int nuggetsCount) { table.set(StatsTable.NUGGETS_COUNT, row, nuggetsCount); }
 
-	synchronized void incrementNuggetsCount() { nuggetsCount++; }
+	void incrementNuggetsCount() { table.add(StatsTable.NUGGETS_COUNT, row, 1); }
 
-	void setNuggetsValue(int nuggetsValue) {
-		this.nuggetsValue = nuggetsValue;
-	}
+	void setNuggetsValue(int nuggetsValue) { table.set(StatsTable.NUGGETS_VALUE, row, nuggetsValue); }
 
-	synchronized void incrementNuggetsValueBy(int amount) {
-		nuggetsValue += amount;
+	void incrementNuggetsValueBy(int amount) {
+		table.add(StatsTable.NUGGETS_VALUE, row, amount);
 	}
 
 
@@ -229,72 +256,58 @@ public final class CompetitorStats {
 	 * @param multiplier	the number of Competitors sharing the Sauce at the time of
 	 *                      consumption
 	 */
-	synchronized void incrementSauces(Sauce sauce, int multiplier) {
+	void incrementSauces(Sauce sauce, int multiplier) {
 		incrementSaucesCount();
 		incrementSaucesValueBy(sauce.getSauceValue() * multiplier);
 	}
 
 
-	void setSaucesCount(int saucesCount) {
-		this.saucesCount = saucesCount;
-	}
+	void setSaucesCount(int saucesCount) { table.set(StatsTable.SAUCES_COUNT, row, saucesCount); }
 
-	synchronized void incrementSaucesCount() { saucesCount++; }
+	void incrementSaucesCount() { table.add(StatsTable.SAUCES_COUNT, row, 1); }
 
-	void setSaucesValue(int saucesValue) {
-		this.saucesValue = saucesValue;
+	void setSaucesValue(int saucesValue) { table.set(StatsTable.SAUCES_VALUE, row, saucesValue); }
+
+	void incrementSaucesValueBy(int amount) {
+		table.add(StatsTable.SAUCES_VALUE, row, amount);
 	}
 
-	synchronized void incrementSaucesValueBy(int amount) { saucesValue += amount; }
+	void setHitsInflicted(int hitsInflicted) { table.set(StatsTable.HITS_INFLICTED, row, hitsInflicted); }
 
-	void setHitsInflicted(int hitsInflicted) {
-		this.hitsInflicted = hitsInflicted;
-	}
+	void incrementHitsInflicted() { table.add(StatsTable.HITS_INFLICTED, row, 1); }
 
-	synchronized void incrementHitsInflicted() { hitsInflicted++; }
+	void setHitsAbsorbed(int hitsAbsorbed) { table.set(StatsTable.HITS_ABSORBED, row, hitsAbsorbed); }
 
-	void setHitsAbsorbed(int hitsAbsorbed) {
-		this.hitsAbsorbed = hitsAbsorbed;
-	}
+	void incrementHitsAbsorbed() { table.add(StatsTable.HITS_ABSORBED, row, 1); }
 
-	synchronized void incrementHitsAbsorbed() { hitsAbsorbed++; }
+	void setDamageInflicted(int damageInflicted) { table.set(StatsTable.DAMAGE_INFLICTED, row, damageInflicted); }
 
-	void setDamageInflicted(int damageInflicted) {
-		this.damageInflicted = damageInflicted;
+	void incrementDamageInflictedBy(int amount) {
+		table.add(StatsTable.DAMAGE_INFLICTED, row, amount);
 	}
 
-	synchronized void incrementDamageInflictedBy(int amount) {
-		 damageInflicted += amount;
-	}
+	void setDamageAbsorbed(int damageAbsorbed) { table.set(StatsTable.DAMAGE_ABSORBED, row, damageAbsorbed); }
 
-	void setDamageAbsorbed(int damageAbsorbed) {
-		this.damageAbsorbed = damageAbsorbed;
+	void incrementDamageAbsorbedBy(int amount) {
+		table.add(StatsTable.DAMAGE_ABSORBED, row, amount);
 	}
 
-	synchronized void incrementDamageAbsorbedBy(int amount) {
-		damageAbsorbed += amount;
-	}
+	void incrementMissedCycles() { table.add(StatsTable.MISSED_CYCLES, row, 1); }
+
+	void incrementCancelledCalls() { table.add(StatsTable.CANCELLED_CALLS, row, 1); }
 
 	/**
 	 * Calculates a score based on the statistics stored in this CompetitorStats object.
-	 * This method also updates the score stored in this object.
+	 * This method also updates the score stored in this object, which other threads see
+	 * once the StatsTable is published.
 	 */
 	int calculateScore() {
-		int score = 0;
-
-		score += getOwner().getEnergyLevel();
-		score += getKills() * 500;
-		score += getDamageInflicted() * 5;	// hits inflicted/absorbed are always equal
-		score -= getDamageAbsorbed() * 5;	// using hits would cancel each other
-		score += getTotalDistance() / 2;
-		score += getCyclesSurvived();
-		score += getNuggetsCount() * 50;
-		score += getNuggetsValue();
-
-		setScore(score);
-		return score;
+		return (int) table.calculateScore(row, getOwner().getLiveEnergyLevel());
 	}
 
+	/** Returns the published value of the counter. */
+	private int get(int counter) { return (int) table.read(counter, row); }
+
 
 	@Override
 	public String toString() {
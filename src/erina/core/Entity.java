@@ -12,7 +12,11 @@ import java.util.List;
  * <p>Entities can be converted to EntityActors using {@link Entity#getActor()}. Similarly
  * EntityActors can be converted to Entities using {@link EntityActor#getEntity()}.
  *
- * @version 1.1
+ * <p>The public and protected getters and queries read the {@link WorldSnapshot} of the
+ * previous cycle, so Competitors always see a consistent state. The Erina itself uses
+ * the package-private live getters, which read the state as it is being modified.
+ *
+ * @version 1.2
  * @author Eric
  */
 public abstract class Entity<E extends Entity<E, A>, A extends EntityActor<E, A>> {
@@ -21,9 +25,15 @@ public abstract class Entity<E extends Entity<E, A>, A extends EntityActor<E, A>
 	private boolean hasInit;
 	private final Erina world;
 
+	// index of the state of this Entity in the EntityStore of the Erina
+	final int id;
+	// indices in the EntityRegistries holding this Entity by slot, -1 if not held
+	final int[] registryIndices = {-1, -1};
+
 
 	public Entity(Erina world) {
 		this.world = world;
+		id = world.getStore().register(this);
 	}
 
 
@@ -41,9 +51,11 @@ public abstract class Entity<E extends Entity<E, A>, A extends EntityActor<E, A>
 			throw new IllegalStateException("Cannot re-initialize Entity");
 		}
 
-		// init image
+		// init image, Actors come with a default image
 		if (image != null)
 			getActor().setImage(image);
+		else
+			world.getStore().setImage(id, getActor().getImage());
 	}
 
 	/**
@@ -55,6 +67,12 @@ public abstract class Entity<E extends Entity<E, A>, A extends EntityActor<E, A>
 	/** Gets the Actor bound to this Entity. */
 	A getActor() { return actor; }
 
+	/**
+	 * Gets the Erina this Entity belongs to. Unlike {@link Entity#getWorld()}, this
+	 * method can be used before initialization.
+	 */
+	Erina getErina() { return world; }
+
 
 	private void validate() {
 		if (getActor() == null)
@@ -75,9 +93,7 @@ public abstract class Entity<E extends Entity<E, A>, A extends EntityActor<E, A>
 	protected final <T> List<T> getIntersectingObjects(Class<T> cls) {
 		validate();
 		Erina.rejectActorType(cls);
-		return Erina.getObjectsUsing(
-				c -> getActor().getIntersectingObjectsActor(c), cls
-		);
+		return world.getSnapshot().getIntersecting(id, cls);
 	}
 
 	/**
@@ -87,9 +103,7 @@ public abstract class Entity<E extends Entity<E, A>, A extends EntityActor<E, A>
 	protected final <T> List<T> getNeighbours(int distance, boolean diagonal, Class<T> cls) {
 		validate();
 		Erina.rejectActorType(cls);
-		return Erina.getObjectsUsing(
-				c -> getActor().getNeighboursActor(distance, diagonal, c), cls
-		);
+		return world.getSnapshot().getNeighbours(id, distance, diagonal, cls);
 	}
 
 	/**
@@ -99,9 +113,8 @@ public abstract class Entity<E extends Entity<E, A>, A extends EntityActor<E, A>
 	protected final <T> List<T> getObjectsAtOffset(int dx, int dy, Class<T> cls) {
 		validate();
 		Erina.rejectActorType(cls);
-		return Erina.getObjectsUsing(
-				c -> getActor().getObjectsAtOffsetActor(dx, dy, c), cls
-		);
+		final WorldSnapshot snapshot = world.getSnapshot();
+		return snapshot.getAt(snapshot.getX(id) + dx, snapshot.getY(id) + dy, id, cls);
 	}
 
 	/**
@@ -111,9 +124,7 @@ public abstract class Entity<E extends Entity<E, A>, A extends EntityActor<E, A>
 	protected final <T> List<T> getObjectsInRange(int radius, Class<T> cls) {
 		validate();
 		Erina.rejectActorType(cls);
-		return Erina.getObjectsUsing(
-				c -> getActor().getObjectsInRangeActor(radius, c), cls
-		);
+		return world.getSnapshot().getInRange(id, radius, cls);
 	}
 
 	/**
@@ -140,19 +151,42 @@ public abstract class Entity<E extends Entity<E, A>, A extends EntityActor<E, A>
 	}
 
 	/** @see	Actor#getRotation() */
-	public final int getDirection() { validate(); return getActor().getRotation(); }
+	public final int getDirection() { validate(); return world.getSnapshot().getDirection(id); }
 
 	/** @see	Actor#getWorld()  */
 	public final Erina getWorld() { validate(); return world; }
 
 	/** @see	Actor#getX() */
-	public final int getX() { validate(); return getActor().getX(); }
+	public final int getX() { validate(); return world.getSnapshot().getX(id); }
 
 	/** @see	Actor#getY() */
-	public final int getY() { validate(); return getActor().getY(); }
+	public final int getY() { validate(); return world.getSnapshot().getY(id); }
+
+	/** Returns the current x coordinate, for use by the Erina. */
+	final int getLiveX() { return world.getStore().getX(id); }
+
+	/** Returns the current y coordinate, for use by the Erina. */
+	final int getLiveY() { return world.getStore().getY(id); }
+
+	/** Returns the current direction, for use by the Erina. */
+	final int getLiveDirection() { return world.getStore().getDirection(id); }
 
 	/** @see	Actor#setLocation(int, int) */
-	final void setLocation(int x, int y) { validate(); getActor().setLocation(x, y); }
+	final void setLocation(int x, int y) {
+		validate();
+		world.getStore().setLocation(id, x, y);
+		world.entityMoved(this);
+	}
+
+	/** @see	Actor#move(int) */
+	final void move(int distance) {
+		validate();
+		world.getStore().move(id, distance);
+		world.entityMoved(this);
+	}
+
+	/** @see	Actor#turn(int) */
+	final void turn(int degrees) { validate(); world.getStore().turn(id, degrees); }
 
 	/**
 	 * Checks whether this Competitor intersects with the specified Entity.
@@ -162,11 +196,11 @@ public abstract class Entity<E extends Entity<E, A>, A extends EntityActor<E, A>
 	 */
 	protected final boolean intersects(Entity<?, ?> other) {
 		validate();
-		return getActor().intersectsActor(other.getActor());
+		return world.getSnapshot().intersects(id, other.id);
 	}
 
 	/** @see	Actor#isAtEdge()  */
-	public final boolean isAtEdge() { validate(); return getActor().isAtEdge(); }
+	public final boolean isAtEdge() { validate(); return world.getSnapshot().isAtEdge(id); }
 
 	/** @see	Actor#isTouching(Class)  */
 	protected final boolean isTouching(Class<?> cls) {
@@ -189,6 +223,7 @@ public abstract class Entity<E extends Entity<E, A>, A extends EntityActor<E, A>
 	/** @see	Actor#setImage(GreenfootImage)  */
 	public final void setImage(GreenfootImage image) {
 		this.image = image;
+		world.getStore().setImage(id, image);
 		if (getActor() != null)
 			getActor().setImage(image);
 	}
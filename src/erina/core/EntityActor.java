@@ -3,12 +3,14 @@ package erina.core;
 import greenfoot.Actor;
 import greenfoot.World;
 
-import java.util.List;
-
 /**
  * An EntityActor can be converted to an Entity.
  *
- * @version 1.0
+ * <p>EntityActors only display their Entities. The state of an Entity is kept in the
+ * {@link EntityStore} of the Erina and copied to its EntityActor with
+ * {@link EntityActor#sync(EntityStore)}.
+ *
+ * @version 1.1
  * @author Eric
  */
 abstract class EntityActor<E extends Entity<E, A>, A extends EntityActor<E, A>>
@@ -33,15 +35,15 @@ abstract class EntityActor<E extends Entity<E, A>, A extends EntityActor<E, A>>
 	@Override
 	protected final void addedToWorld(World world) { getEntity().addedToWorld(world); }
 
-	<T> List<T> getIntersectingObjectsActor(Class<T> cls) { return super.getIntersectingObjects(cls); }
-	<T> List<T> getNeighboursActor(int distance, boolean diagonal, Class<T> cls) {
-		return super.getNeighbours(distance, diagonal, cls);
+	/**
+	 * Copies the location and direction of the Entity from the EntityStore to this
+	 * Actor. This Actor must be in a World.
+	 */
+	void sync(EntityStore store) {
+		final int id = getEntity().id;
+		setLocation(store.getX(id), store.getY(id));
+		setRotation(store.getDirection(id));
 	}
-	<T> List<T> getObjectsAtOffsetActor(int dx, int dy, Class<T> cls) { return super.getObjectsAtOffset(dx, dy, cls); }
-	<T> List<T> getObjectsInRangeActor(int radius, Class<T> cls) { return super.getObjectsInRange(radius, cls); }
-	// what's the point of the Class parameter if we are always returning Actor?
-//	Actor getOneIntersectingObjectSuper(Class<?> cls) { return super.getOneIntersectingObject(cls); }
-//	Actor getOneObjectAtOffsetSuper(int dx, int dy, Class<?> cls) { return super.getOneObjectAtOffset(dx, dy, cls); }
-	boolean intersectsActor(Actor other) { return super.intersects(other); }
-	boolean isTouchingActor(Class<?> cls) { return super.isTouching(cls); }
+
+	// object queries and intersections are answered by the Erina instead
 }
@@ -0,0 +1,96 @@
+package erina.core;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
+
+/**
+ * Recycles Entities that come and go during a match, like Nuggets and Sauces. An Entity
+ * leaving the Erina is released to the pool, together with its EntityActor, and handed
+ * out again the next time an Entity of the same value is spawned. New Entities are only
+ * created while more are in play than ever before, so a match in a steady state does not
+ * allocate any.
+ *
+ * <p>Entities keep their id for the lifetime of the Erina, a recycled Entity is the same
+ * Entity to the EntityStore and to the {@link EventLog}.
+ *
+ * <p>An EntityPool is only used by the thread running the Erina and is not synchronized.
+ *
+ * @version 1.0
+ * @author Eric
+ */
+final class EntityPool<E extends Entity<?, ?>> {
+
+	private final IntFunction<? extends E> factory;
+	private final ToIntFunction<? super E> valueOf;
+
+	// a free list for each value, there are only a few values
+	private final List<Integer> values = new ArrayList<>();
+	private final List<ArrayDeque<E>> free = new ArrayList<>();
+
+	private int created = 0;
+
+
+	/**
+	 * Creates an empty EntityPool.
+	 * @param factory	creates an Entity of the specified value with its EntityActor
+	 * @param valueOf	returns the value of an Entity
+	 */
+	EntityPool(IntFunction<? extends E> factory, ToIntFunction<? super E> valueOf) {
+		this.factory = factory;
+		this.valueOf = valueOf;
+	}
+
+
+	/**
+	 * Returns a free Entity of the specified value, creating one if there is none.
+	 * @param value	the value of the Entity
+	 * @return	an Entity out of the Erina
+	 */
+	E acquire(int value) {
+		final E entity = freeListOf(value).pollFirst();
+		if (entity != null)
+			return entity;
+
+		created++;
+		return factory.apply(value);
+	}
+
+	/**
+	 * Returns the Entity to the pool. The Entity must have been removed from the Erina.
+	 */
+	void release(E entity) {
+		// most recently used first, its state is most likely still in the caches
+		freeListOf(valueOf.applyAsInt(entity)).addFirst(entity);
+	}
+
+	/**
+	 * Creates Entities of the specified value ahead of time.
+	 * @param value	the value of the Entities
+	 * @param count	the number of Entities to create
+	 */
+	void fill(int value, int count) {
+		final ArrayDeque<E> list = freeListOf(value);
+		for (int i = 0; i < count; i++) {
+			list.addLast(factory.apply(value));
+			created++;
+		}
+	}
+
+	private ArrayDeque<E> freeListOf(int value) {
+		for (int i = 0; i < values.size(); i++) {
+			if (values.get(i) == value)
+				return free.get(i);
+		}
+
+		values.add(value);
+		free.add(new ArrayDeque<>());
+		return free.get(free.size() - 1);
+	}
+
+
+	/** Returns the number of Entities this pool has created. */
+	int getCreated() { return created; }
+}
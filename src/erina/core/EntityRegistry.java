@@ -0,0 +1,139 @@
+package erina.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An array backed set of Entities in the Erina. Adding, removing, counting and testing
+ * membership all take constant time, and the Entities can be iterated by index without
+ * allocating.
+ *
+ * <p>Each Entity remembers its index in the registries holding it, so an Entity can be
+ * held by at most one registry of each slot. The Erina keeps one registry of all
+ * Entities in the {@link EntityRegistry#ALL} slot and one registry per type of Entity in
+ * the {@link EntityRegistry#BY_TYPE} slot.
+ *
+ * <p>Removing an Entity moves the last Entity into its place, so the iteration order
+ * changes whenever an Entity is removed. Removing Entities while iterating is only safe
+ * when iterating backwards.
+ *
+ * <p>Registries are only used by the thread running the Erina, Competitors read the
+ * {@link WorldSnapshot} instead.
+ *
+ * @version 1.0
+ * @author Eric
+ */
+final class EntityRegistry<E extends Entity<?, ?>> {
+
+	/** The slot of the registry holding all Entities. */
+	static final int ALL = 0;
+
+	/** The slot of the registries holding a single type of Entity. */
+	static final int BY_TYPE = 1;
+
+	/** The number of slots, i.e. the number of registries an Entity can be in at once. */
+	static final int SLOTS = 2;
+
+	private final int slot;
+
+	private Entity<?, ?>[] entities = new Entity<?, ?>[16];
+	private int size = 0;
+
+
+	/**
+	 * Creates an empty EntityRegistry using the specified slot in the Entities.
+	 * @param slot	either {@link EntityRegistry#ALL} or {@link EntityRegistry#BY_TYPE}
+	 */
+	EntityRegistry(int slot) {
+		if (slot < 0 || slot >= SLOTS)
+			throw new IllegalArgumentException("Illegal slot: " + slot);
+		this.slot = slot;
+	}
+
+
+	/**
+	 * Adds the Entity to this registry.
+	 * @return	true if added, false if the Entity is already in this registry
+	 * @throws IllegalStateException	if the Entity is in another registry of the same slot
+	 */
+	boolean add(E entity) {
+		if (contains(entity))
+			return false;
+		if (entity.registryIndices[slot] >= 0)
+			throw new IllegalStateException("Entity is already in another registry");
+
+		if (size == entities.length)
+			entities = Arrays.copyOf(entities, size * 2);
+
+		entities[size] = entity;
+		entity.registryIndices[slot] = size;
+		size++;
+		return true;
+	}
+
+	/**
+	 * Removes the Entity from this registry. The last Entity takes its place.
+	 * @return	true if removed, false if the Entity is not in this registry
+	 */
+	boolean remove(E entity) {
+		if (!contains(entity))
+			return false;
+
+		final int index = entity.registryIndices[slot];
+		final Entity<?, ?> last = entities[--size];
+
+		entities[index] = last;
+		last.registryIndices[slot] = index;
+
+		entities[size] = null;
+		entity.registryIndices[slot] = -1;
+		return true;
+	}
+
+	/**
+	 * Checks if the Entity is in this registry.
+	 */
+	boolean contains(Entity<?, ?> entity) {
+		if (entity == null)
+			return false;
+
+		final int index = entity.registryIndices[slot];
+		return index >= 0 && index < size && entities[index] == entity;
+	}
+
+	/** Returns the number of Entities in this registry. */
+	int size() { return size; }
+
+	/** Returns true if this registry holds no Entities. */
+	boolean isEmpty() { return size == 0; }
+
+	/**
+	 * Returns the Entity at the specified index, which must be less than
+	 * {@link EntityRegistry#size()}.
+	 */
+	@SuppressWarnings("unchecked")
+	E get(int index) {
+		if (index >= size)
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		return (E) entities[index];
+	}
+
+
+	/**
+	 * Returns all Entities in this registry of the specified type.
+	 * @param cls	the type of Entities to return
+	 * @param <T>	the type of Entities to return
+	 * @return	a new List of the matching Entities
+	 */
+	<T> List<T> collect(Class<T> cls) {
+		final List<T> result = new ArrayList<>(size);
+
+		for (int i = 0; i < size; i++) {
+			if (cls.isInstance(entities[i]))
+				result.add(cls.cast(entities[i]));
+		}
+
+		return result;
+	}
+}
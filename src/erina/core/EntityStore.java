@@ -0,0 +1,347 @@
+package erina.core;
+
+import greenfoot.GreenfootImage;
+
+import java.util.Arrays;
+
+/**
+ * Holds the state of all Entities in an Erina in primitive arrays indexed by the id of
+ * each Entity. The location, direction, energy, type and image size of an Entity live
+ * here rather than in its Actor, so that the passes over all Entities each cycle walk
+ * contiguous arrays instead of chasing references.
+ *
+ * <p>The EntityStore is the only source of truth for the state it holds. EntityActors
+ * are only a view of it, brought up to date by the Erina once per cycle when there is
+ * something to display.
+ *
+ * <p>Movement follows the rules of Greenfoot: moves are rounded to whole cells, locations
+ * are clamped to the bounds of the Erina and directions are kept between 0 and 359.
+ *
+ * <p>The EntityStore is only used by the thread running the Erina. Competitors read the
+ * {@link WorldSnapshot} published at the end of each cycle instead.
+ *
+ * @version 1.1
+ * @author Eric
+ */
+final class EntityStore {
+
+	/** Type of Entities that are none of the types below. */
+	static final byte OTHER = 0;
+	/** Type of Competitors. */
+	static final byte COMPETITOR = 1;
+	/** Type of Nuggets. */
+	static final byte NUGGET = 2;
+	/** Type of Sauces. */
+	static final byte SAUCE = 3;
+
+	private final int worldWidth, worldHeight;
+
+	// ids are never reused, Entities are kept for the lifetime of the Erina
+	private int count = 0;
+
+	private Entity<?, ?>[] entities;
+	private byte[] type;
+	private boolean[] inWorld;
+	private int[] x, y, direction, energy;
+	private int[] imageWidth, imageHeight;
+
+
+	/**
+	 * Creates an empty EntityStore for an Erina of the specified size.
+	 * @param worldWidth	the width of the Erina
+	 * @param worldHeight	the height of the Erina
+	 */
+	EntityStore(int worldWidth, int worldHeight) {
+		this.worldWidth = worldWidth;
+		this.worldHeight = worldHeight;
+		allocate(64);
+	}
+
+	private void allocate(int capacity) {
+		entities = entities == null ?
+				new Entity<?, ?>[capacity] : Arrays.copyOf(entities, capacity);
+		type = type == null ? new byte[capacity] : Arrays.copyOf(type, capacity);
+		inWorld = inWorld == null ? new boolean[capacity] : Arrays.copyOf(inWorld, capacity);
+		x = grow(x, capacity);
+		y = grow(y, capacity);
+		direction = grow(direction, capacity);
+		energy = grow(energy, capacity);
+		imageWidth = grow(imageWidth, capacity);
+		imageHeight = grow(imageHeight, capacity);
+	}
+
+	private static int[] grow(int[] array, int capacity) {
+		return array == null ? new int[capacity] : Arrays.copyOf(array, capacity);
+	}
+
+
+	/**
+	 * Assigns an id to the Entity. Called once by each Entity on construction.
+	 * @return	the id of the Entity
+	 */
+	int register(Entity<?, ?> entity) {
+		if (count == entities.length)
+			allocate(count * 2);
+
+		final int id = count++;
+		entities[id] = entity;
+		type[id] = typeOf(entity);
+		return id;
+	}
+
+	private static byte typeOf(Entity<?, ?> entity) {
+		if (entity instanceof Competitor)
+			return COMPETITOR;
+		if (entity instanceof Nugget)
+			return NUGGET;
+		if (entity instanceof Sauce)
+			return SAUCE;
+		return OTHER;
+	}
+
+	/** Returns the number of ids assigned, every id is less than this number. */
+	int size() { return count; }
+
+	/** Returns the Entity with the specified id. */
+	Entity<?, ?> getEntity(int id) { return entities[id]; }
+
+	/**
+	 * Returns the array holding the Entities by id. Entries below {@link #size()} never
+	 * change, the array must not be modified.
+	 */
+	Entity<?, ?>[] getEntities() { return entities; }
+
+	/**
+	 * Copies the state of every id into the specified arrays, which must be at least
+	 * {@link #size()} long.
+	 */
+	void copyTo(boolean[] inWorld, int[] x, int[] y, int[] direction, int[] energy,
+				int[] imageWidth, int[] imageHeight) {
+		System.arraycopy(this.inWorld, 0, inWorld, 0, count);
+		System.arraycopy(this.x, 0, x, 0, count);
+		System.arraycopy(this.y, 0, y, 0, count);
+		System.arraycopy(this.direction, 0, direction, 0, count);
+		System.arraycopy(this.energy, 0, energy, 0, count);
+		System.arraycopy(this.imageWidth, 0, imageWidth, 0, count);
+		System.arraycopy(this.imageHeight, 0, imageHeight, 0, count);
+	}
+
+	/** Returns the type of the Entity with the specified id. */
+	byte getType(int id) { return type[id]; }
+
+
+	/**
+	 * Places the Entity in the Erina at the specified location, clamped to the bounds of
+	 * the Erina.
+	 */
+	void add(int id, int x, int y) {
+		inWorld[id] = true;
+		setLocation(id, x, y);
+	}
+
+	/** Takes the Entity out of the Erina. Its state is kept. */
+	void remove(int id) { inWorld[id] = false; }
+
+	/** Checks if the Entity is in the Erina. */
+	boolean isInWorld(int id) { return inWorld[id]; }
+
+
+	int getX(int id) { return x[id]; }
+
+	int getY(int id) { return y[id]; }
+
+	int getDirection(int id) { return direction[id]; }
+
+	int getEnergy(int id) { return energy[id]; }
+
+	int getImageWidth(int id) { return imageWidth[id]; }
+
+	int getImageHeight(int id) { return imageHeight[id]; }
+
+
+	/**
+	 * Sets the location of the Entity, clamped to the bounds of the Erina.
+	 * @see	greenfoot.Actor#setLocation(int, int)
+	 */
+	void setLocation(int id, int x, int y) {
+		this.x[id] = Math.max(0, Math.min(worldWidth - 1, x));
+		this.y[id] = Math.max(0, Math.min(worldHeight - 1, y));
+	}
+
+	/**
+	 * Moves the Entity the specified distance in its current direction.
+	 * @see	greenfoot.Actor#move(int)
+	 */
+	void move(int id, int distance) {
+		final double rads = Math.toRadians(direction[id]);
+		final int dx = (int) Math.round(Math.cos(rads) * distance);
+		final int dy = (int) Math.round(Math.sin(rads) * distance);
+		setLocation(id, x[id] + dx, y[id] + dy);
+	}
+
+	/**
+	 * Sets the direction of the Entity, normalized to between 0 and 359.
+	 * @see	greenfoot.Actor#setRotation(int)
+	 */
+	void setDirection(int id, int degrees) {
+		degrees %= 360;
+		if (degrees < 0)
+			degrees += 360;
+		direction[id] = degrees;
+	}
+
+	/**
+	 * Turns the Entity by the specified angle, positive angles are clockwise.
+	 * @see	greenfoot.Actor#turn(int)
+	 */
+	void turn(int id, int degrees) { setDirection(id, direction[id] + degrees % 360); }
+
+	/**
+	 * Checks if the Entity is at the edge of the Erina.
+	 * @see	greenfoot.Actor#isAtEdge()
+	 */
+	boolean isAtEdge(int id) {
+		return x[id] <= 0 || y[id] <= 0 || x[id] >= worldWidth - 1 || y[id] >= worldHeight - 1;
+	}
+
+
+	void setEnergy(int id, int amount) { energy[id] = amount; }
+
+	/** Changes the energy of the Entity and returns the new energy. */
+	int changeEnergy(int id, int amount) { return energy[id] += amount; }
+
+	/**
+	 * Changes the energy of every Entity of the specified type in the Erina by the same
+	 * amount.
+	 */
+	void changeEnergyOfAll(byte type, int amount) {
+		final byte[] types = this.type;
+		final boolean[] inWorld = this.inWorld;
+		final int[] energy = this.energy;
+
+		for (int id = 0; id < count; id++) {
+			if (inWorld[id] && types[id] == type)
+				energy[id] += amount;
+		}
+	}
+
+
+	/** Records the size of the image of the Entity, null images have no size. */
+	void setImage(int id, GreenfootImage image) {
+		imageWidth[id] = image == null ? 0 : image.getWidth();
+		imageHeight[id] = image == null ? 0 : image.getHeight();
+	}
+
+	/**
+	 * Returns the radius of the smallest circle containing the image of the Entity at
+	 * any rotation.
+	 */
+	int getRadius(int id) {
+		// the sum is exact, so the root is the same as Math.hypot, only faster
+		final double width = imageWidth[id], height = imageHeight[id];
+		return (int) Math.ceil(Math.sqrt(width * width + height * height) / 2);
+	}
+
+
+	/**
+	 * Checks if the images of the two Entities, rotated with the Entities, overlap.
+	 * Touching edges do not count as overlapping.
+	 * @see	greenfoot.Actor#intersects(greenfoot.Actor)
+	 */
+	boolean intersects(int a, int b) {
+		// images whose bounding circles are apart cannot overlap, which rules out most
+		// candidates without any trigonometry
+		final double dx = x[b] - x[a], dy = y[b] - y[a];
+		final double widthA = imageWidth[a], heightA = imageHeight[a];
+		final double widthB = imageWidth[b], heightB = imageHeight[b];
+		final double reach = (Math.sqrt(widthA * widthA + heightA * heightA)
+				+ Math.sqrt(widthB * widthB + heightB * heightB)) / 2;
+		if (dx * dx + dy * dy >= reach * reach)
+			return false;
+
+		return intersects(
+				x[a], y[a], direction[a], imageWidth[a], imageHeight[a],
+				x[b], y[b], direction[b], imageWidth[b], imageHeight[b]);
+	}
+
+	/**
+	 * Checks if the image of the Entity, rotated with the Entity, covers the specified
+	 * location. An Entity without an image only covers its own location.
+	 */
+	boolean contains(int id, int x, int y) {
+		return contains(this.x[id], this.y[id], direction[id],
+				imageWidth[id], imageHeight[id], x, y);
+	}
+
+
+	/**
+	 * Checks if two rotated images overlap. Touching edges do not count as overlapping.
+	 */
+	static boolean intersects(
+			int xA, int yA, int directionA, int widthA, int heightA,
+			int xB, int yB, int directionB, int widthB, int heightB) {
+		final double dx = xB - xA, dy = yB - yA;
+		final double halfWidthA = widthA / 2d, halfHeightA = heightA / 2d;
+		final double halfWidthB = widthB / 2d, halfHeightB = heightB / 2d;
+
+		if (directionA % 90 == 0 && directionB % 90 == 0) {
+			// axis aligned, sides swap when turned sideways
+			final boolean sidewaysA = directionA % 180 != 0;
+			final boolean sidewaysB = directionB % 180 != 0;
+			return Math.abs(dx) < (sidewaysA ? halfHeightA : halfWidthA)
+					+ (sidewaysB ? halfHeightB : halfWidthB)
+				&& Math.abs(dy) < (sidewaysA ? halfWidthA : halfHeightA)
+					+ (sidewaysB ? halfWidthB : halfHeightB);
+		}
+
+		// separating axis test over the two axes of each image
+		final double radsA = Math.toRadians(directionA), radsB = Math.toRadians(directionB);
+		final double cosA = Math.cos(radsA), sinA = Math.sin(radsA);
+		final double cosB = Math.cos(radsB), sinB = Math.sin(radsB);
+
+		return overlapOnAxis(cosA, sinA, dx, dy,
+						halfWidthA, halfHeightA, cosA, sinA, halfWidthB, halfHeightB, cosB, sinB)
+				&& overlapOnAxis(-sinA, cosA, dx, dy,
+						halfWidthA, halfHeightA, cosA, sinA, halfWidthB, halfHeightB, cosB, sinB)
+				&& overlapOnAxis(cosB, sinB, dx, dy,
+						halfWidthA, halfHeightA, cosA, sinA, halfWidthB, halfHeightB, cosB, sinB)
+				&& overlapOnAxis(-sinB, cosB, dx, dy,
+						halfWidthA, halfHeightA, cosA, sinA, halfWidthB, halfHeightB, cosB, sinB);
+	}
+
+	/**
+	 * Checks if the projections of two rotated rectangles on the axis (axisX, axisY)
+	 * overlap.
+	 */
+	private static boolean overlapOnAxis(
+			double axisX, double axisY, double dx, double dy,
+			double halfWidthA, double halfHeightA, double cosA, double sinA,
+			double halfWidthB, double halfHeightB, double cosB, double sinB) {
+		final double distance = Math.abs(dx * axisX + dy * axisY);
+		final double reachA = halfWidthA * Math.abs(cosA * axisX + sinA * axisY)
+				+ halfHeightA * Math.abs(-sinA * axisX + cosA * axisY);
+		final double reachB = halfWidthB * Math.abs(cosB * axisX + sinB * axisY)
+				+ halfHeightB * Math.abs(-sinB * axisX + cosB * axisY);
+		return distance < reachA + reachB;
+	}
+
+	/**
+	 * Checks if a rotated image centred at (centreX, centreY) covers the location (x, y).
+	 * An image of no size only covers its centre.
+	 */
+	static boolean contains(int centreX, int centreY, int direction, int width, int height,
+							int x, int y) {
+		final double dx = x - centreX, dy = y - centreY;
+
+		if (width == 0 && height == 0)
+			return dx == 0 && dy == 0;
+
+		// rotate the location into the frame of the unrotated image
+		final double rads = Math.toRadians(direction);
+		final double cos = Math.cos(rads), sin = Math.sin(rads);
+		final double localX = dx * cos + dy * sin;
+		final double localY = -dx * sin + dy * cos;
+
+		return Math.abs(localX) <= width / 2d && Math.abs(localY) <= height / 2d;
+	}
+}
@@ -4,15 +4,15 @@ import erina.Coordinate;
 import erina.Pair;
 import greenfoot.*;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
-import java.util.function.Function;
-import java.util.stream.Collectors;
 
 /**
  * The World where Competitors compete in.
  * The Erina is the perfected version of the original beloved and wildly popular Arena.
  *
- * @version 1.1
+ * @version 1.4
  * @author Eric
  */
 public abstract class Erina extends World {
@@ -54,57 +54,129 @@ public abstract class Erina extends World {
 	 * the Erina during execution.
 	 */
 
-	/** Width of the Erina. */
+	/**
+	 * Width of the Erina by default.
+	 * @deprecated	set per match, use {@link Erina#getWidth()} or
+	 * {@link ErinaConfig#getWidth()}
+	 */
+	@Deprecated
 	public static final int WORLD_WIDTH = 1024;
 
-	/** Height of the Erina. */
+	/**
+	 * Height of the Erina by default.
+	 * @deprecated	set per match, use {@link Erina#getHeight()} or
+	 * {@link ErinaConfig#getHeight()}
+	 */
+	@Deprecated
 	public static final int WORLD_HEIGHT = 720;
 
-	/** Maximum number of cycles before the competition ends. */
+	/**
+	 * Maximum number of cycles before the competition ends by default.
+	 * @deprecated	set per match, use {@link ErinaConfig#getMaxCycles()}
+	 */
+	@Deprecated
 	public static final int MAX_CYCLES = 10000;
 
-	/** Maximum number of nuggets allowed to exist simultaneously in the Erina. */
-	private static final int MAX_NUGGETS = 15;
-
-	/** Energy rewarded to surviving Competitors each cycle. */
+	/**
+	 * Energy rewarded to surviving Competitors each cycle by default.
+	 * @deprecated	set per match, use {@link ErinaConfig#getEnergyPerCycle()}
+	 */
+	@Deprecated
 	public static final int ENERGY_PER_CYCLE = 1;
 
-	// list of nuggets, instances in this list are reused
-	private final List<Nugget> NUGGETS;
-	// same for sauces
-	private final List<Sauce> SAUCES;
+	/** Least distance between neighbouring Competitors on a ring at the start. */
+	private static final int START_SPACING = 80;
+
+	/** Cycles between the milestones logged. */
+	private static final int MILESTONE_INTERVAL = 500;
+
+	// Nuggets and Sauces out of play, reused when spawning
+	private final EntityPool<Nugget> NUGGET_POOL =
+			new EntityPool<>(value -> Nugget.create(this, value), Nugget::getNuggetValue);
+	private final EntityPool<Sauce> SAUCE_POOL =
+			new EntityPool<>(value -> Sauce.create(this, value), Sauce::getSauceValue);
 
 	// the BGM played through out the game
 	private final String BGM_FILE = "sounds/17 Disc Wars 1.wav";
-	private final GreenfootSound BGM = new GreenfootSound(BGM_FILE);
+	private final GreenfootSound BGM;
 
 	// the sounds made only once at the start
-	private final List<GreenfootSound> START_SOUNDS = initSounds(
-			"sounds/WHOOSH_Camera_Flash.wav",
-			"sounds/It's time to Duel [HQ] - YouTube.mp3"
-	);
+	private final List<GreenfootSound> START_SOUNDS;
 
 	// the sound played at the end of game
 	private final String EOG_SOUND_FILE = "sounds/RISE-SHORT_Snap.wav";
-	private final GreenfootSound EOG_SOUND = new GreenfootSound(EOG_SOUND_FILE);
+	private final GreenfootSound EOG_SOUND;
 
 	private final String BACKGROUND_FILE = "images/bathroom-tile.jpg";
 
-	private boolean isFirstAct = true;
+	private final ErinaConfig CONFIG;
+
+	// volatile, tells Competitors reading snapshots whether the Erina is still being set up
+	private volatile boolean isFirstAct = true;
+	private boolean isGameOver = false;
+
+	// all Competitors ranked by score, only available after the game ended
+	private List<Competitor> rankedCompetitors = Collections.emptyList();
 
 	private long currentCycle = 0;
 
 	// not static because each reset in greenfoot constructs a new Erina
-	private final ManeuverFetcher FETCHER = new ManeuverFetcher();
+	private final ManeuverFetcher FETCHER;
 
 	/*
 	ENTITIES contain all Entities in the Erina, including Nuggets, Competitors, etc.
-	COMPETITORS only contain Competitors. It is a subset of ENTITIES.
+	COMPETITORS, NUGGETS_IN_PLAY and SAUCES_IN_PLAY only contain Entities of their type
+	currently in the Erina. They are subsets of ENTITIES.
 	 */
-	private final List<Entity<?, ?>> ENTITIES = new LinkedList<>();
+	private final EntityRegistry<Entity<?, ?>> ENTITIES =
+			new EntityRegistry<>(EntityRegistry.ALL);
+
+	private final EntityRegistry<Competitor> COMPETITORS =
+			new EntityRegistry<>(EntityRegistry.BY_TYPE);
+	private final EntityRegistry<Nugget> NUGGETS_IN_PLAY =
+			new EntityRegistry<>(EntityRegistry.BY_TYPE);
+	private final EntityRegistry<Sauce> SAUCES_IN_PLAY =
+			new EntityRegistry<>(EntityRegistry.BY_TYPE);
+
+	private final List<Competitor> DECEASED_COMPS = new ArrayList<>();
 
-	private final List<Competitor> COMPETITORS = new LinkedList<>();
-	private final List<Competitor> DECEASED_COMPS = new LinkedList<>();
+	// location, direction, energy, etc. of every Entity ever created for this Erina
+	private final EntityStore STORE;
+
+	// counters of the CompetitorStats of every Competitor ever created for this Erina
+	private final StatsTable STATS = new StatsTable();
+
+	// all Entities in the Erina indexed by location, for finding intersections
+	private final SpatialGrid GRID;
+
+	// binary log of the events of the match, null if not written
+	private EventLog events;
+
+	// decides where and when Nuggets and Sauces appear, the only randomness in the Erina
+	private final long SEED;
+	private final Random RANDOM;
+	// where Nuggets and Sauces spawn, draws from RANDOM
+	private final SpawnPlacer PLACER;
+
+	// where the Maneuvers come from when replaying, null if the Competitors are run
+	private final MatchReplay REPLAY;
+	// null if the match is not recorded
+	private MatchRecorder recorder;
+
+	// events due in later cycles, like Sauces expiring
+	private final TimerWheel TIMERS = new TimerWheel(256, -1);
+	// the Sauces put in play this cycle, reused from cycle to cycle
+	private final List<Sauce> NEW_SAUCES = new ArrayList<>();
+	// Sauces that started counting down this cycle, reused from cycle to cycle
+	private final List<Sauce> STARTED_SAUCES = new ArrayList<>();
+
+	// times the phases of each cycle, does nothing unless profiling
+	private final TickProfiler PROFILER;
+
+	// what Competitors see, replaced at the end of every cycle
+	private volatile WorldSnapshot snapshot;
+	// the snapshot published before the latest, updated next
+	private WorldSnapshot spareSnapshot;
 
 	private final World DISPLAY;
 
@@ -112,7 +184,7 @@ public abstract class Erina extends World {
 	/**
 	 * Constructs a new Erina, displaying only to this World.
 	 */
-	public Erina() { this(null); }
+	public Erina() { this(null, ErinaConfig.DEFAULT); }
 
 	/**
 	 * Constructs a new Erina, displaying the results of actions on the specified World.
@@ -120,59 +192,85 @@ public abstract class Erina extends World {
 	 * Greenfoot IDE, which requires the World displayed to be a direct subclass of World.
 	 * @param display	the World to reflect actions on
 	 */
-	public Erina(World display) {
-		super(Erina.WORLD_WIDTH, Erina.WORLD_HEIGHT, 1);
+	public Erina(World display) { this(display, ErinaConfig.DEFAULT); }
 
-		DISPLAY = display;
-
-		setBackground(BACKGROUND_FILE);
-		if (DISPLAY != null) DISPLAY.setBackground(getBackground());
-
-
-		Logger.logLine("Welcome to The Erina!");
+	/**
+	 * Constructs a new Erina with the specified settings, displaying only to this World.
+	 * @param config	the settings of this Erina
+	 */
+	public Erina(ErinaConfig config) { this(null, config); }
 
+	/**
+	 * Constructs a new Erina with the specified settings, displaying the results of
+	 * actions on the specified World.
+	 * @param display	the World to reflect actions on, ignored if the Erina is headless
+	 * @param config	the settings of this Erina
+	 */
+	public Erina(World display, ErinaConfig config) {
+		this(display, config, openReplay(config));
+	}
 
-		{
-			// init nuggets, 10% are 1500, 30% are 1000, 60% are 500
-			final List<Nugget> nuggets = new ArrayList<>();
-
-			// doesn't really matter, 10 is a nice number
-			final int someNum = 10;
-			for (int i = 0; i < someNum; i++) {
-				if (i < 0.1 * someNum)	// 10%
-					nuggets.add(new Nugget(this, 1500));
-				else if (i < 0.3 * someNum)	// 30%
-					nuggets.add(new Nugget(this, 1000));
-				else	// the rest
-					nuggets.add(new Nugget(this, 500));
-			}
+	private Erina(World display, ErinaConfig config, MatchReplay replay) {
+		// a replay plays out in an Erina of the size recorded
+		super(replay != null ? replay.getWidth() : config.getWidth(),
+				replay != null ? replay.getHeight() : config.getHeight(), 1);
 
-			// init NuggetActors
-			nuggets.forEach(nugget -> nugget.init(new NuggetActor(nugget)));
+		REPLAY = replay;
+		if (REPLAY != null) {
+			SEED = REPLAY.getSeed();
+			// the rules as recorded, whatever the settings say
+			CONFIG = REPLAY.withRules(config);
+		}
+		else {
+			SEED = config.getSeed().orElseGet(() -> new Random().nextLong());
+			CONFIG = config;
+		}
+		RANDOM = new Random(SEED);
+
+		STORE = new EntityStore(CONFIG.getWidth(), CONFIG.getHeight());
+		GRID = new SpatialGrid(STORE,
+				CONFIG.getWidth(), CONFIG.getHeight(), SpatialGrid.DEFAULT_CELL_SIZE);
+		PLACER = new SpawnPlacer(GRID, RANDOM, CONFIG.getWidth(), CONFIG.getHeight());
+
+		FETCHER = new ManeuverFetcher(CONFIG);
+		PROFILER = new TickProfiler(CONFIG.isProfiling());
+
+		if (isHeadless()) {
+			// nothing is rendered or played in a headless Erina
+			DISPLAY = null;
+			BGM = null;
+			START_SOUNDS = Collections.emptyList();
+			EOG_SOUND = null;
+		}
+		else {
+			DISPLAY = display;
+			BGM = new GreenfootSound(BGM_FILE);
+			START_SOUNDS = initSounds(
+					"sounds/WHOOSH_Camera_Flash.wav",
+					"sounds/It's time to Duel [HQ] - YouTube.mp3"
+			);
+			EOG_SOUND = new GreenfootSound(EOG_SOUND_FILE);
 
-			NUGGETS = Collections.unmodifiableList(nuggets);
+			setBackground(BACKGROUND_FILE);
+			if (DISPLAY != null) DISPLAY.setBackground(getBackground());
 		}
 
 
-		{
-			// init sauces, very similar to nuggets
-			final List<Sauce> sauces = new ArrayList<>();
-
-			final int someNum = 10;
-			for (int i = 0; i < someNum; i++) {
-				if (i < 0.1 * someNum)
-					sauces.add(new Sauce(this, 1500));
-				else if (i < 0.3 * someNum)
-					sauces.add(new Sauce(this, 1000));
-				else
-					sauces.add(new Sauce(this, 500));
-			}
+		Logger.logLine("Welcome to The Erina!");
+		Logger.logLine("Seed: %d", SEED);
 
-			// init actors
-			sauces.forEach(sauce -> sauce.init(new SauceActor(sauce)));
+		TIMERS.schedule(MILESTONE_INTERVAL, this::logMilestone);
 
-			SAUCES = Collections.unmodifiableList(sauces);
-		}
+
+		// one Nugget and one Sauce of each value to start with, created before the
+		// Competitors so that their ids do not depend on when things spawn; the pools
+		// grow when more are in play
+		final SpawnTable nuggetValues = CONFIG.getNuggetValues();
+		for (int i = 0; i < nuggetValues.size(); i++)
+			NUGGET_POOL.fill(nuggetValues.getValue(i), 1);
+		final SpawnTable sauceValues = CONFIG.getSauceValues();
+		for (int i = 0; i < sauceValues.size(); i++)
+			SAUCE_POOL.fill(sauceValues.getValue(i), 1);
 
 
 		{
@@ -188,11 +286,11 @@ public abstract class Erina extends World {
 			final List<Competitor> competitors = prepareCompetitors();
 
 			final List<Coordinate> coordinates =
-					getCoordinatesFor(competitors.size(), Erina.WORLD_WIDTH, Erina.WORLD_HEIGHT);
+					getCoordinatesFor(competitors.size(), getWidth(), getHeight());
 			// calculated coordinates are centered at the center of the world, need to convert
 			coordinates.replaceAll(c -> new Coordinate(
-					Erina.WORLD_WIDTH / 2 + c.getX(),
-					Erina.WORLD_HEIGHT / 2 - c.getY()
+					getWidth() / 2 + c.getX(),
+					getHeight() / 2 - c.getY()
 			));
 
 			for (int i = 0; i < competitors.size(); i++) {
@@ -204,18 +302,34 @@ public abstract class Erina extends World {
 					competitor.init(new CompetitorActor(competitor));
 				// add to world, this also adds Competitor to COMPETITORS
 				addEntity(competitor, coordinate.getX(), coordinate.getY());
-				// add NameTags
-				final Pair<Integer, Integer> offset = getNameTagOffset(competitor);
-				addObject(competitor.getNameTag(),
-						competitor.getX() + offset.getKey(),
-						competitor.getY() - offset.getValue()
-				);
-
-				// submit for updating
-				FETCHER.submit(competitor);
+				// add NameTags, headless Competitors do not have one
+				final NameTag nameTag = competitor.getNameTag();
+				if (nameTag != null) {
+					final Pair<Integer, Integer> offset = getNameTagOffset(competitor);
+					addObject(nameTag,
+							competitor.getLiveX() + offset.getKey(),
+							competitor.getLiveY() - offset.getValue()
+					);
+				}
+
+				// submit for updating, replayed Competitors are never run
+				if (REPLAY == null)
+					FETCHER.submit(competitor);
 			}
 
-			FETCHER.start();
+			openEventLog();
+
+			if (REPLAY != null) {
+				REPLAY.checkCompetitors(competitors);
+				Logger.logLine("Replaying %s", CONFIG.getReplay());
+			}
+			else
+				openRecording(competitors);
+
+			// Competitors only read snapshots, there must be one before they start
+			publishSnapshot();
+			if (REPLAY == null)
+				FETCHER.start();
 		}
 
 
@@ -230,174 +344,401 @@ public abstract class Erina extends World {
 	protected abstract List<Competitor> prepareCompetitors();
 
 
+	/**
+	 * Runs this headless Erina until the game ends. Cycles are run back to back as fast
+	 * as possible, without waiting on Greenfoot.
+	 * @throws IllegalStateException	if this Erina is not headless
+	 * @see	ErinaConfig#isHeadless()
+	 */
+	public final void run() throws IllegalStateException {
+		if (!isHeadless())
+			throw new IllegalStateException("Only headless Erina can be run directly");
+
+		while (!isGameOver)
+			act();
+	}
+
+
 	@Override
 	public void act() {
+		// nothing to do once the game has ended
+		if (isGameOver) return;
 
 		if (isFirstAct) {
 			isFirstAct = false;
-			tryPlaySounds(START_SOUNDS);
 
-			while (START_SOUNDS.get(START_SOUNDS.size()-1).isPlaying())
-				Greenfoot.delay(30);
+			if (!isHeadless()) {
+				tryPlaySounds(START_SOUNDS);
+
+				while (START_SOUNDS.get(START_SOUNDS.size()-1).isPlaying())
+					Greenfoot.delay(30);
+			}
 		}
 
 		tryPlaySound(BGM);
 
-		tryAddNugget();
-		tryAddSauce();
+		PROFILER.startCycle();
 
-		updateManeuvers();
-		updateSauces();
+		tryAddNuggets();
+		PROFILER.lap(TickProfiler.Phase.NUGGETS);
+		tryAddSauces();
+		PROFILER.lap(TickProfiler.Phase.SAUCES);
 
-		COMPETITORS.forEach(competitor -> {
-			competitor.changeEnergy(ENERGY_PER_CYCLE);
-			competitor.getStats().incrementCyclesSurvived();
-		});
+		final Collection<Competitor> maneuvered = updateManeuvers();
+		PROFILER.lap(TickProfiler.Phase.MANEUVERS);
+		updateSauces(maneuvered);
+		TIMERS.advanceTo(currentCycle);
+		PROFILER.lap(TickProfiler.Phase.TIMERS);
+
+		STORE.changeEnergyOfAll(EntityStore.COMPETITOR, CONFIG.getEnergyPerCycle());
+		for (int i = 0; i < COMPETITORS.size(); i++)
+			COMPETITORS.get(i).getStats().incrementCyclesSurvived();
+		PROFILER.lap(TickProfiler.Phase.ENERGY);
+
+		if (!isHeadless())
+			syncActors();
+
+		publishSnapshot();
+		PROFILER.lap(TickProfiler.Phase.SNAPSHOT);
 
 
 		currentCycle++;
 
+		final boolean isEnding = COMPETITORS.size() < 2 || currentCycle >= CONFIG.getMaxCycles();
+		PROFILER.lap(TickProfiler.Phase.GAME_END_CHECK);
+		// the wrap up of the game is not part of the cycle
+		PROFILER.endCycle();
+
 		// if game ended
-		if (COMPETITORS.size() < 2 || currentCycle >= Erina.MAX_CYCLES) {
+		if (isEnding) {
+			isGameOver = true;
 			FETCHER.shutdown();
-			Greenfoot.stop();
+			closeEventLog();
+			closeRecording();
+			if (REPLAY != null && REPLAY.hasNext())
+				Logger.logLine("Replay ended before the recording, the match was not"
+						+ " replayed faithfully");
+			if (!isHeadless()) Greenfoot.stop();
 
 			logGameEnded();
+			logTickProfile();
 
-			// play end of game sound
-			tryPlaySound(EOG_SOUND);
-			Greenfoot.delay(1000);	// not sure what's this for but it's in the original
+			if (!isHeadless()) {
+				// play end of game sound
+				tryPlaySound(EOG_SOUND);
+				Greenfoot.delay(1000);	// not sure what's this for but it's in the original
+			}
 
-			final List<Competitor> ALL_COMPS = new ArrayList<>(COMPETITORS);
+			final List<Competitor> ALL_COMPS = COMPETITORS.collect(Competitor.class);
 			ALL_COMPS.addAll(DECEASED_COMPS);
 
 			// calculate scores
 			// I don't see why we should calculate scores differently for alive and dead
 			// competitors...
-			ALL_COMPS.forEach(competitor -> competitor.getStats().calculateScore());
+			STATS.calculateScores(STORE);
+			STATS.publish();
 
 			// rank Competitors
 			final Comparator<Competitor> compareByScore =
 					Comparator.comparingInt(comp -> comp.getStats().getScore());
 			ALL_COMPS.sort(compareByScore.reversed());	// reversed for highest to lowest
+			rankedCompetitors = Collections.unmodifiableList(ALL_COMPS);
 
 
 			// display score board
-			addObject(
-					new ScoreBoard(1000, 700, ALL_COMPS),
-					Erina.WORLD_WIDTH / 2, Erina.WORLD_HEIGHT / 2);
+			if (!isHeadless()) {
+				addObject(
+						new ScoreBoard(1000, 700, ALL_COMPS),
+						getWidth() / 2, getHeight() / 2);
+			}
 		}
-
-
-		else if (currentCycle % 500 == 0)	// log cycle milestones
-			Logger.logLine("Cycle: %d", currentCycle);
 	}
 
 
 	/**
-	 * Attempts to add a random Nugget to this Erina. A Nugget may or may not be added as
-	 * the result.
+	 * Attempts to add random Nuggets to this Erina. Any number of Nuggets may be added as
+	 * the result, most cycles none.
 	 *
 	 * <p>When and how are nuggets added:
-	 * <p>On each cycle, a number is calculated to represent the probability of a nugget
-	 * being added. This probability is determined by the number of nuggets already
-	 * existing in the world and the maximum number of nuggets allowed (MAX_NUGGETS).
-	 * The probability is 0.01 when the current number of nuggets is 0, is 0 when the
-	 * current number of nuggets equals to MAX_NUGGETS, and decreases linearly in
-	 * between.
-	 * <p>This probability has nothing to do with what type of nugget being added; it
-	 * represents the likelihood of any nugget being added.
-	 * <p>If it is determined that a nugget should be added, the specific nugget is
-	 * selected randomly from a List of Nuggets, then added to a random location. The list
-	 * is initialized to contain the different types of nuggets at the specified
-	 * percentages. (10% are 1500, 30% are 1000, 60% are 500)
-	 */
-	private void tryAddNugget() {
-		final double PROBABILITY =
-				(MAX_NUGGETS - getObjects(Nugget.class).size()) * 0.01 / MAX_NUGGETS;
-
-		if (Math.random() < PROBABILITY) {	// if add nugget
-			addEntity(
-					NUGGETS.get(Greenfoot.getRandomNumber(NUGGETS.size())),
-					Greenfoot.getRandomNumber(Erina.WORLD_WIDTH),
-					Greenfoot.getRandomNumber(Erina.WORLD_HEIGHT)
-			);
+	 * <p>On each cycle, the number of nuggets to add is drawn at random, see
+	 * {@link Erina#countSpawns(double, int, int)}. The expected number is the Nugget rate
+	 * of the ErinaConfig when no nuggets are in play, 0 when the maximum number of nuggets
+	 * are, and decreases linearly in between. By default this is a probability of 0.01
+	 * falling to 0 at 15 nuggets.
+	 * <p>This number has nothing to do with what type of nugget being added; the value of
+	 * each nugget is picked from the Nugget SpawnTable of the ErinaConfig (by default 10%
+	 * are 1500, 30% are 1000, 60% are 500), and a Nugget of that value is taken from the
+	 * pool and added to a random location clear of other Entities, see {@link SpawnPlacer}.
+	 */
+	private void tryAddNuggets() {
+		final int count = countSpawns(
+				CONFIG.getNuggetRate(), NUGGETS_IN_PLAY.size(), CONFIG.getMaxNuggets());
+
+		for (int i = 0; i < count; i++) {
+			final Nugget nugget = NUGGET_POOL.acquire(CONFIG.getNuggetValues().sample(RANDOM));
+			final Coordinate location = PLACER.place(STORE.getRadius(nugget.id));
+			addEntity(nugget, location.getX(), location.getY());
 		}
 	}
 
 	/**
-	 * Attempts to add a random Sauce to this Erina. A Sauce may or may not be added as
-	 * the result.
+	 * Attempts to add random Sauces to this Erina, like
+	 * {@link Erina#tryAddNuggets()} with the Sauce settings of the ErinaConfig. By
+	 * default about 1 Sauce is added every 350 cycles, with no maximum.
 	 */
-	private void tryAddSauce() {
-		/*
-		In the original Arena, sauce was added every 200 cycles plus a random number
-		from 0 to 299, so average to 1 sauce every 350 cycles. This probability should
-		give about the same frequency.
-		 */
-		final double PROBABILITY = 1d / 350;
-
-		if (Math.random() < PROBABILITY) {
-			addEntity(
-					SAUCES.get(Greenfoot.getRandomNumber(SAUCES.size())),
-					Greenfoot.getRandomNumber(Erina.WORLD_WIDTH),
-					Greenfoot.getRandomNumber(Erina.WORLD_HEIGHT)
-			);
+	private void tryAddSauces() {
+		final int count = countSpawns(
+				CONFIG.getSauceRate(), SAUCES_IN_PLAY.size(), CONFIG.getMaxSauces());
+
+		for (int i = 0; i < count; i++) {
+			final Sauce sauce = SAUCE_POOL.acquire(CONFIG.getSauceValues().sample(RANDOM));
+			final Coordinate location = PLACER.place(STORE.getRadius(sauce.id));
+			NEW_SAUCES.add(sauce);
+			addEntity(sauce, location.getX(), location.getY());
 		}
 	}
 
+	/**
+	 * Draws the number of Entities to spawn this cycle. The whole part of the expected
+	 * number is always spawned, and one more with the probability of the fractional part,
+	 * so a rate below 1 is the probability of a single spawn.
+	 * @param rate	the expected number of spawns while none are in play
+	 * @param inPlay	the number in play
+	 * @param max	the maximum number in play, 0 for no limit
+	 * @return	the number to spawn
+	 */
+	private int countSpawns(double rate, int inPlay, int max) {
+		final double expected = max > 0 ? (max - inPlay) * rate / max : rate;
+
+		final int whole = (int) expected;
+		final int count = RANDOM.nextDouble() < expected - whole ? whole + 1 : whole;
+		return max > 0 ? Math.min(count, max - inPlay) : count;
+	}
+
 
 	/**
 	 * Updates Maneuver related stuff, including Nugget consumptions.
 	 * This method collects and handles maneuvers.
+	 * @return	the Competitors that maneuvered
 	 */
-	private void updateManeuvers() {
-		// collect maneuvers from competitors
-		final Map<Competitor, Maneuver> maneuvers = new HashMap<>();
-
-		for (Competitor competitor : COMPETITORS) {
-			final Maneuver maneuver = FETCHER.get(competitor);
+	private Collection<Competitor> updateManeuvers() {
+		// linked, maneuvers are applied in the order collected so that replays match
+		final Map<Competitor, Maneuver> maneuvers = new LinkedHashMap<>();
+
+		if (REPLAY != null) {
+			// replaying, take the recorded maneuvers instead
+			if (REPLAY.hasNext())
+				REPLAY.next(STORE, maneuvers);
+			ManeuverHandler.handle(maneuvers);
+			return maneuvers.keySet();
+		}
 
-			if (maneuver != null)
+		// collect maneuvers from competitors
+		for (int i = 0; i < COMPETITORS.size(); i++) {
+			final Competitor competitor = COMPETITORS.get(i);
+			Maneuver maneuver = FETCHER.get(competitor);
+
+			if (maneuver != null) {
+				// what is recorded must be what is applied, even if the Competitor keeps
+				// adding to its Maneuver
+				if (recorder != null)
+					maneuver = maneuver.copy();
 				maneuvers.put(competitor, maneuver);
+			}
 		}
 
+		record(maneuvers);
+
 		// move, handle nuggets
 		ManeuverHandler.handle(maneuvers);
 
 		// fetch next maneuvers
-		COMPETITORS.forEach(FETCHER::clear);
+		for (int i = 0; i < COMPETITORS.size(); i++)
+			FETCHER.clear(COMPETITORS.get(i));
+
+		return maneuvers.keySet();
 	}
 
 	/**
 	 * Updates Sauce related stuff.
 	 * Sauce has a timeout, therefore not handled in ManeuverHandler.
+	 *
+	 * <p>A Sauce in play starts counting down on contact with a Competitor, and expires
+	 * on a timer. Contact can only be made by a Competitor that maneuvered, or by a
+	 * Sauce put in play this cycle, so only those are checked.
+	 * @param maneuvered	the Competitors that maneuvered this cycle
 	 */
-	private void updateSauces() {
-		// sauces need to be updated so they are not handled with maneuvers
-		SAUCES.forEach(sauce -> {
-			// if this sauce is in the world
-			if (this.getObjects(Sauce.class).contains(sauce)) {
-				// if contact with competitor, start countdown
-				if (!sauce.getIntersectingObjects(Competitor.class).isEmpty())
-					sauce.startCountdown();
-
-				sauce.updateTimeout();
-
-				if (sauce.hasTimedOut()) {
-					// timed out, give energy to intersecting competitors
-					final List<Competitor> intersectingCompetitors =
-							sauce.getIntersectingObjects(Competitor.class);
-					final int multiplier = intersectingCompetitors.size();
-					intersectingCompetitors.forEach(
-							competitor -> competitor.consume(sauce, multiplier)
-					);
-
-					removeEntity(sauce);
-					sauce.resetTimeout();
+	private void updateSauces(Collection<Competitor> maneuvered) {
+		for (Competitor competitor : maneuvered) {
+			// dead Competitors are out of the Erina
+			if (!ENTITIES.contains(competitor))
+				continue;
+
+			for (Sauce sauce : getIntersectingEntities(competitor, Sauce.class)) {
+				if (!sauce.isCountingDown()) {
+					sauce.startCountdown(currentCycle);
+					STARTED_SAUCES.add(sauce);
 				}
 			}
-		});
+		}
+
+		for (Sauce sauce : NEW_SAUCES) {
+			if (!sauce.isCountingDown() && (sauce.hasCountedDown()
+					|| !getIntersectingEntities(sauce, Competitor.class).isEmpty())) {
+				sauce.startCountdown(currentCycle);
+				STARTED_SAUCES.add(sauce);
+			}
+		}
+		NEW_SAUCES.clear();
+
+		// Sauces expiring in the same cycle expire in the order they were created
+		STARTED_SAUCES.sort(Comparator.comparingInt(sauce -> sauce.id));
+		for (Sauce sauce : STARTED_SAUCES)
+			TIMERS.schedule(sauce.getExpiryCycle(), () -> expire(sauce));
+		STARTED_SAUCES.clear();
+	}
+
+	/**
+	 * Removes the Sauce from the Erina, giving its energy to the Competitors touching it.
+	 */
+	private void expire(Sauce sauce) {
+		// timed out, give energy to intersecting competitors
+		final List<Competitor> intersectingCompetitors =
+				getIntersectingEntities(sauce, Competitor.class);
+		final int multiplier = intersectingCompetitors.size();
+		intersectingCompetitors.forEach(
+				competitor -> competitor.consume(sauce, multiplier)
+		);
+
+		sauce.resetTimeout();
+		removeEntity(sauce);
+	}
+
+	/**
+	 * Logs the cycle and schedules the next milestone.
+	 */
+	private void logMilestone() {
+		Logger.logLine("Cycle: %d", currentCycle);
+		TIMERS.schedule(currentCycle + MILESTONE_INTERVAL, this::logMilestone);
+	}
+
+
+	/**
+	 * Opens the EventLog if one is configured, along with the names of all Entities.
+	 */
+	private void openEventLog() {
+		final Path path = CONFIG.getEventLog();
+		if (path == null) return;
+
+		try {
+			events = new EventLog(path);
+			EventLog.writeNames(path, STORE);
+		}
+		catch (IOException e) {
+			Logger.logLine("Failed to open event log %s: %s", path, e);
+			closeEventLog();
+		}
+	}
+
+	/**
+	 * Records an event in the EventLog, if one is being written.
+	 * @param type	the type of the event, one of the types in EventLog
+	 * @param subject	the Entity the event happened to
+	 * @param object	the other Entity involved, may be null
+	 * @param value	the value of the event
+	 */
+	void recordEvent(int type, Entity<?, ?> subject, Entity<?, ?> object, int value) {
+		if (events == null) return;
+
+		try {
+			events.record(currentCycle, type, subject.id, object == null ? -1 : object.id, value);
+		}
+		catch (IOException e) {
+			Logger.logLine("Failed to write event log, no more events are recorded: %s", e);
+			closeEventLog();
+		}
+	}
+
+	private void closeEventLog() {
+		if (events == null) return;
+
+		try {
+			events.close();
+			// again, with the Entities created since
+			EventLog.writeNames(CONFIG.getEventLog(), STORE);
+		}
+		catch (IOException e) {
+			Logger.logLine("Failed to close event log: %s", e);
+		}
+		events = null;
+	}
+
+	/**
+	 * Starts recording the match if a recording is configured.
+	 */
+	private void openRecording(List<Competitor> competitors) {
+		final Path path = CONFIG.getRecording();
+		if (path == null) return;
+
+		try {
+			recorder = new MatchRecorder(path, SEED, CONFIG, competitors);
+		}
+		catch (IOException e) {
+			Logger.logLine("Failed to open recording %s: %s", path, e);
+			closeRecording();
+		}
+	}
+
+	/**
+	 * Records the Maneuvers applied this cycle, if the match is being recorded.
+	 */
+	private void record(Map<Competitor, Maneuver> maneuvers) {
+		if (recorder == null) return;
+
+		try {
+			recorder.record(maneuvers);
+		}
+		catch (IOException e) {
+			Logger.logLine("Failed to write recording, the match is no longer recorded: %s", e);
+			closeRecording();
+		}
+	}
+
+	private void closeRecording() {
+		if (recorder == null) return;
+
+		try {
+			recorder.close();
+		}
+		catch (IOException e) {
+			Logger.logLine("Failed to close recording: %s", e);
+		}
+		recorder = null;
+	}
+
+	/**
+	 * Publishes a WorldSnapshot of the current state and the CompetitorStats for the
+	 * Competitors to read.
+	 */
+	private void publishSnapshot() {
+		WorldSnapshot next = spareSnapshot;
+		if (next == null || !next.fits(STORE))
+			next = new WorldSnapshot(STORE, GRID, getWidth(), getHeight());
+		next.update(currentCycle, STORE, GRID);
+		GRID.nextGeneration();
+
+		spareSnapshot = snapshot;
+		snapshot = next;
+		STATS.publish();
+	}
+
+	/**
+	 * Copies the state of all Entities in this Erina from the EntityStore to their
+	 * Actors, so that Greenfoot displays them where they are.
+	 */
+	private void syncActors() {
+		for (int i = 0; i < ENTITIES.size(); i++)
+			ENTITIES.get(i).getActor().sync(STORE);
 	}
 
 
@@ -436,19 +777,93 @@ public abstract class Erina extends World {
 	}
 
 
+	/**
+	 * Opens the recording to replay, if any.
+	 * @return	the MatchReplay, or null if the match is played
+	 * @throws IllegalArgumentException	if the recording cannot be read
+	 */
+	private static MatchReplay openReplay(ErinaConfig config) {
+		if (config.getReplay() == null)
+			return null;
+
+		try {
+			return MatchReplay.open(config.getReplay());
+		}
+		catch (IOException e) {
+			throw new IllegalArgumentException(
+					"Cannot replay " + config.getReplay() + ": " + e.getMessage(), e);
+		}
+	}
+
+
 	/**
 	 * Generates the Coordinates for the specified number of competitors in a world of
 	 * specified width and height.
-	 * The generated Coordinates are on a symmetrical shape centered at the center of the
-	 * world. Each Pair is defined such that the distance from the Pair to the
-	 * origin is 90% of the length of the line segment from the origin to the point of
-	 * intersection formed by the bounds of the world and the line passing through the
-	 * origin and the Pair.
+	 * The generated Coordinates are on symmetrical rings centered at the center of the
+	 * world. On the outermost ring, the distance from each Coordinate to the origin is 90%
+	 * of the length of the line segment from the origin to the point of intersection
+	 * formed by the bounds of the world and the line passing through the origin and the
+	 * Coordinate. Each ring further in is a smaller copy, START_SPACING closer to the
+	 * center along the shorter side of the world.
+	 * <p>Only as many rings are used as needed to keep neighbours on a ring START_SPACING
+	 * apart, so a few dozen competitors all start on the outermost ring. Competitors are
+	 * shared among the rings in proportion to their size, and neighbouring rings are
+	 * turned by half a step against each other. When there are too many competitors for
+	 * the spacing, every ring that fits in the world is used.
 	 */
 	private static List<Coordinate> getCoordinatesFor(
 			int numEntities,
 			double width,
 			double height) {
+		final double outermost = 0.9;
+		// rings shrink by START_SPACING at the top and bottom, or left and right
+		final double step = 2 * START_SPACING / Math.min(width, height);
+
+		// competitors are spaced by angle, they are closest on the shorter side, half
+		// of it away from the center
+		int rings = 0;
+		double scales = 0;
+		long capacity = 0;
+		while (capacity < numEntities && outermost - rings * step > 0) {
+			final double scale = outermost - rings * step;
+			capacity += (long) (Math.PI * scale * Math.min(width, height) / START_SPACING);
+			scales += scale;
+			rings++;
+		}
+		if (rings == 0) {	// too small a world for the spacing
+			rings = 1;
+			scales = outermost;
+		}
+
+		final List<Coordinate> coordinates = new ArrayList<>();
+
+		// the remainder goes to the outer rings
+		int left = numEntities;
+		for (int ring = 0; ring < rings; ring++) {
+			final double scale = outermost - ring * step;
+			final int count = ring == rings - 1 ? left : Math.min(left,
+					(int) Math.ceil(numEntities * scale / scales));
+			addRing(coordinates, count, scale, ring % 2 == 0 ? 0 : 0.5, width, height);
+			left -= count;
+		}
+
+		return coordinates;
+	}
+
+	/**
+	 * Adds Coordinates evenly spaced by angle on a ring, a copy of the bounds of the world
+	 * scaled by the specified factor.
+	 * @param offset	the fraction of the angle between neighbours the ring is turned by
+	 */
+	private static void addRing(
+			List<Coordinate> coordinates,
+			int numEntities,
+			double scale,
+			double offset,
+			double width,
+			double height) {
+		if (numEntities == 0) return;
+
 		// all angles in radians, 0 facing right, positive in counterclockwise direction
 		final double anglePerEntity = 2 * Math.PI / numEntities;
 
@@ -458,11 +873,9 @@ public abstract class Erina extends World {
 		final double quadrant3 = Math.PI + quadrant1;
 		final double quadrant4 = 2 * Math.PI - quadrant1;
 
-		final List<Coordinate> coordinates = new ArrayList<>();
-
-//		// for each entity
+		// for each entity
 		for (int i = 0; i < numEntities; i++) {
-			final double angle = anglePerEntity * i;
+			final double angle = anglePerEntity * (i + offset);
 			double opposite, adjacent, hypotenuse;
 
 			if (angle < quadrant1 || angle > quadrant4) {	// on right side
@@ -483,12 +896,10 @@ public abstract class Erina extends World {
 			}
 
 			coordinates.add(new Coordinate(
-					(int) (0.9 * hypotenuse * Math.cos(angle)),
-					(int) (0.9 * hypotenuse * Math.sin(angle))
+					(int) (scale * hypotenuse * Math.cos(angle)),
+					(int) (scale * hypotenuse * Math.sin(angle))
 			));
 		}
-
-		return coordinates;
 	}
 
 
@@ -520,8 +931,8 @@ public abstract class Erina extends World {
 
 		// show Competitors left
 		Logger.logLine("%d Competitors left in play...", COMPETITORS.size());
-		COMPETITORS.forEach(competitor ->
-				Logger.logLine(competitor.getStats().toString()));
+		for (int i = 0; i < COMPETITORS.size(); i++)
+			Logger.logLine(COMPETITORS.get(i).getStats().toString());
 
 		Logger.logLine();
 
@@ -532,6 +943,40 @@ public abstract class Erina extends World {
 			Logger.log(stats.toString());
 			Logger.logLine(", KilledBy:%15s", stats.getLastAttacker());
 		});
+
+		// replayed Competitors are never run, there is nothing to show
+		if (REPLAY != null) return;
+
+		Logger.logLine();
+
+		// show how long Competitors took to come up with Maneuvers
+		Logger.logLine("Maneuver latencies...");
+		final List<Competitor> competitors = COMPETITORS.collect(Competitor.class);
+		competitors.addAll(DECEASED_COMPS);
+		competitors.forEach(competitor -> {
+			final CompetitorStats stats = competitor.getStats();
+			// formatted here, a late Maneuver may still be recorded while the log is written
+			Logger.logLine("%15s: Compute: %s, Turnaround: %s, MissedCycles:%6d, Cancelled:%4d",
+					competitor, stats.getComputeTimes().toString(),
+					stats.getTurnaroundTimes().toString(),
+					stats.getMissedCycles(), stats.getCancelledCalls());
+		});
+	}
+
+
+	/**
+	 * Logs how long each phase of the recent cycles took, if this Erina is profiling.
+	 * The profile is logged at the end of the match anyway; call this from the thread
+	 * running this Erina, for example from {@link Erina#act()}, to see it sooner.
+	 * @see	ErinaConfig#isProfiling()
+	 */
+	protected final void logTickProfile() {
+		if (!PROFILER.isEnabled()) return;
+
+		Logger.logLine();
+		Logger.logLine("Tick profile at cycle %d...", currentCycle);
+		// formatted here, the profiler keeps changing while the log is written
+		Logger.log("%s", PROFILER.toString());
 	}
 
 
@@ -541,43 +986,89 @@ public abstract class Erina extends World {
 	public final long getCurrentCycle() { return currentCycle; }
 
 	/**
-	 * Get objects of target type using the specified Function, removing all Actor
-	 * instances from the result.
-	 * If the targetType is or is subtype of Entity, the specified Function is invoked with EntityActor class.
-	 * The returned List should never contain Actor objects.
-	 * @param getter	the Function to get objects from
-	 * @param targetType	the Class representing the desired type
-	 * @param <T>	the desired type
-	 * @return	a List of type T's returned by the specified Function
-	 */
-	static <T> List<T> getObjectsUsing(Function<Class<?>, List<?>> getter, Class<T> targetType) {
-		// unlike greenfoot's getObjects, we don't allow null
-		Objects.requireNonNull(targetType);
-
-		// if targetType is or is subtype of Entity
-		if (Entity.class.isAssignableFrom(targetType)) {
-			// apply function to Entity
-			return getter.apply(EntityActor.class).stream()
-					// filter for EntityActors
-					.filter(obj -> obj instanceof EntityActor)
-					// cast to EntityActors
-					.map(actor -> (EntityActor) actor)
-					// get Entities from EntityActors
-					.map(EntityActor::getEntity)
-					// filter for Entities of the same type or subtype of T
-					.filter(entity -> targetType.isAssignableFrom(entity.getClass()))
-					// cast to return type
-					.map(entity -> (T) entity)
-					// collect to List
-					.collect(Collectors.toList());
-		}
-		else {
-			return getter.apply(targetType).stream()
-					.filter(obj -> !(obj instanceof Actor))
-					.filter(obj -> targetType.isAssignableFrom(obj.getClass()))
-					.map(obj -> (T) obj)
-					.collect(Collectors.toList());
+	 * Checks if the game in this Erina has ended.
+	 * @return	true if the game has ended, false otherwise
+	 */
+	public final boolean isGameOver() { return isGameOver; }
+
+	/**
+	 * Returns all Competitors that took part in the game, alive or dead, ranked from the
+	 * highest score to the lowest. The returned List is empty until the game has ended.
+	 * @return	an unmodifiable List of the ranked Competitors
+	 * @see	Erina#isGameOver()
+	 */
+	public final List<Competitor> getRankedCompetitors() { return rankedCompetitors; }
+
+	/**
+	 * Checks if this Erina is running headless.
+	 * @return	true if headless, false otherwise
+	 * @see	ErinaConfig#isHeadless()
+	 */
+	public final boolean isHeadless() { return CONFIG.isHeadless(); }
+
+	/**
+	 * Returns the seed of this Erina, taken from the ErinaConfig or the replayed
+	 * recording, or picked at random if neither has one.
+	 * @return	the seed
+	 * @see	ErinaConfig#getSeed()
+	 */
+	public final long getSeed() { return SEED; }
+
+	/**
+	 * Returns all Entities of the specified type intersecting the specified Entity,
+	 * using the spatial index of this Erina rather than scanning every Actor.
+	 * @param entity	the Entity to find intersections with
+	 * @param cls	the type of Entities to return
+	 * @param <T>	the type of Entities to return
+	 * @return	a List of the intersecting Entities
+	 */
+	<T> List<T> getIntersectingEntities(Entity<?, ?> entity, Class<T> cls) {
+		return GRID.getIntersecting(entity, cls);
+	}
+
+	/**
+	 * Creates a Random for the Entity with the specified id, seeded from the seed of this
+	 * Erina. Each id gets its own unrelated sequence of numbers.
+	 */
+	Random newRandom(int id) {
+		// SplitMix64, so that neighbouring ids do not get similar seeds
+		long z = SEED + (id + 1) * 0x9E3779B97F4A7C15L;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return new Random(z ^ (z >>> 31));
+	}
+
+	/**
+	 * Returns the EntityStore holding the state of the Entities in this Erina.
+	 */
+	EntityStore getStore() { return STORE; }
+
+	/**
+	 * Returns the StatsTable holding the counters of the CompetitorStats in this Erina.
+	 */
+	StatsTable getStatsTable() { return STATS; }
+
+	/**
+	 * Returns the latest WorldSnapshot of this Erina, which answers everything
+	 * Competitors read. While this Erina is being set up, the snapshot is retaken
+	 * whenever an Entity created since is read.
+	 */
+	WorldSnapshot getSnapshot() {
+		WorldSnapshot snapshot = this.snapshot;
+		if (snapshot == null || isFirstAct && !snapshot.covers(STORE.size() - 1)) {
+			// only while setting up, once the game is running Entities created in a cycle
+			// are in the snapshot taken at its end
+			publishSnapshot();
+			snapshot = this.snapshot;
 		}
+		return snapshot;
+	}
+
+	/**
+	 * Updates the spatial index after the specified Entity moved.
+	 */
+	void entityMoved(Entity<?, ?> entity) {
+		GRID.update(entity);
 	}
 
 
@@ -602,9 +1093,17 @@ public abstract class Erina extends World {
 
 		rejectActorType(cls);
 
-		return getObjectsUsing(super::getObjects, cls);
-	}
+		// Entities are answered by the snapshot, without going through Greenfoot
+		if (Entity.class.isAssignableFrom(cls))
+			return getSnapshot().getEntities(cls);
 
+		final List<T> objects = new ArrayList<>();
+		for (Object object : super.getObjects(cls)) {
+			if (!(object instanceof Actor))
+				objects.add(cls.cast(object));
+		}
+		return objects;
+	}
 
 	/**
 	 * Returns all objects at the given location of the specified type except Actor
@@ -631,10 +1130,7 @@ public abstract class Erina extends World {
 
 		rejectActorType(cls);
 
-		return getObjectsUsing(
-				c -> super.getObjectsAt(x, y, c),
-				cls
-		);
+		return getSnapshot().getAt(x, y, -1, cls);
 	}
 
 
@@ -650,18 +1146,31 @@ public abstract class Erina extends World {
 
 	/**
 	 * Adds the specified Entity to this Erina, automatically adding the linked
-	 * Actor to this World as well.
+	 * Actor to this World as well. Headless Erinas do not display anything, so the Actor
+	 * is left out.
 	 * @param entity	the Entity to add
 	 * @param x	the x position to add the specified Entity to
 	 * @param y	the y position to add the specified Entity to
 	 * @see World#addObject(Actor, int, int)
 	 */
 	void addEntity(Entity<?, ?> entity, int x, int y) {
-		ENTITIES.add(entity);
-		addObject(entity.getActor(), x, y);
+		// like World#addObject(Actor, int, int), adding an Entity twice does nothing
+		if (!ENTITIES.add(entity))
+			return;
+
+		STORE.add(entity.id, x, y);
+		if (!isHeadless())
+			addObject(entity.getActor(), STORE.getX(entity.id), STORE.getY(entity.id));
+		else
+			entity.addedToWorld(this);
+		GRID.add(entity);
 
 		if (entity instanceof Competitor)
 			COMPETITORS.add((Competitor) entity);
+		else if (entity instanceof Nugget)
+			NUGGETS_IN_PLAY.add((Nugget) entity);
+		else if (entity instanceof Sauce)
+			SAUCES_IN_PLAY.add((Sauce) entity);
 	}
 
 
@@ -681,8 +1190,13 @@ public abstract class Erina extends World {
 	 * @see World#removeObject(Actor)
 	 */
 	void removeEntity(Entity<?, ?> entity) {
-		ENTITIES.remove(entity);
-		removeObject(entity.getActor());
+		if (!ENTITIES.remove(entity))
+			return;
+
+		GRID.remove(entity);
+		STORE.remove(entity.id);
+		if (!isHeadless())
+			removeObject(entity.getActor());
 
 		if (entity instanceof Maneuverable)	// includes null check
 			FETCHER.remove((Maneuverable) entity);
@@ -690,7 +1204,16 @@ public abstract class Erina extends World {
 		if (entity instanceof Competitor) {
 			final Competitor competitor = (Competitor) entity;
 			COMPETITORS.remove(competitor); DECEASED_COMPS.add(competitor);
-			removeObject(competitor.getNameTag());
+			if (competitor.getNameTag() != null)
+				removeObject(competitor.getNameTag());
+		}
+		else if (entity instanceof Nugget) {
+			NUGGETS_IN_PLAY.remove((Nugget) entity);
+			NUGGET_POOL.release((Nugget) entity);
+		}
+		else if (entity instanceof Sauce) {
+			SAUCES_IN_PLAY.remove((Sauce) entity);
+			SAUCE_POOL.release((Sauce) entity);
 		}
 	}
 
@@ -0,0 +1,649 @@
+package erina.core;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.OptionalLong;
+import java.util.Properties;
+
+/**
+ * Holds the settings of a single match in the Erina. ErinaConfig objects are immutable,
+ * use {@link ErinaConfig.Builder} to create one, setting by setting or from a properties
+ * file, see {@link Builder#set(String, String)}.
+ *
+ * @version 1.4
+ * @author Eric
+ */
+public final class ErinaConfig {
+
+	/** The settings used when no ErinaConfig is specified. */
+	public static final ErinaConfig DEFAULT = new Builder().build();
+
+	private final boolean headless;
+	private final int width;
+	private final int height;
+	private final int maxCycles;
+	private final int energyPerCycle;
+	private final ExecutionMode executionMode;
+	private final Path eventLog;
+	private final Long seed;
+	private final Path recording;
+	private final Path replay;
+	private final Duration timeBudget;
+	private final int cycleBudget;
+	private final LatePolicy latePolicy;
+	private final boolean profiling;
+	private final SpawnTable nuggetValues;
+	private final double nuggetRate;
+	private final int maxNuggets;
+	private final SpawnTable sauceValues;
+	private final double sauceRate;
+	private final int maxSauces;
+
+
+	private ErinaConfig(Builder builder) {
+		headless = builder.headless;
+		width = builder.width;
+		height = builder.height;
+		maxCycles = builder.maxCycles;
+		energyPerCycle = builder.energyPerCycle;
+		executionMode = builder.executionMode;
+		eventLog = builder.eventLog;
+		seed = builder.seed;
+		recording = builder.recording;
+		replay = builder.replay;
+		timeBudget = builder.timeBudget;
+		cycleBudget = builder.cycleBudget;
+		latePolicy = builder.latePolicy;
+		profiling = builder.profiling;
+		nuggetValues = builder.nuggetValues;
+		nuggetRate = builder.nuggetRate;
+		maxNuggets = builder.maxNuggets;
+		sauceValues = builder.sauceValues;
+		sauceRate = builder.sauceRate;
+		maxSauces = builder.maxSauces;
+	}
+
+
+	/**
+	 * Checks if the Erina should run headless. A headless Erina does not render, does not
+	 * play sounds and does not wait on Greenfoot; it is driven by {@link Erina#run()}
+	 * instead of the Greenfoot scheduler.
+	 * @return	true if headless, false otherwise
+	 */
+	public boolean isHeadless() { return headless; }
+
+	/**
+	 * Returns the width of the Erina. Erinas larger than the Greenfoot display are meant
+	 * to be run headless.
+	 * @return	the width in pixels
+	 */
+	public int getWidth() { return width; }
+
+	/**
+	 * Returns the height of the Erina.
+	 * @return	the height in pixels
+	 */
+	public int getHeight() { return height; }
+
+	/**
+	 * Returns the maximum number of cycles before the match ends.
+	 * @return	the maximum number of cycles
+	 */
+	public int getMaxCycles() { return maxCycles; }
+
+	/**
+	 * Returns the energy rewarded to surviving Competitors each cycle.
+	 * @return	the energy per cycle
+	 */
+	public int getEnergyPerCycle() { return energyPerCycle; }
+
+	/**
+	 * Returns the kind of threads Competitors are run on.
+	 * @return	the ExecutionMode
+	 */
+	public ExecutionMode getExecutionMode() { return executionMode; }
+
+	/**
+	 * Returns the file the binary {@link EventLog} of the match is written to, or null if
+	 * no event log is written.
+	 * @return	the path of the event log, or null
+	 */
+	public Path getEventLog() { return eventLog; }
+
+	/**
+	 * Returns the seed of the random numbers deciding where and when Nuggets and Sauces
+	 * appear. Matches with the same seed, the same Competitors and the same Maneuvers play
+	 * out the same. If empty, each Erina picks its own seed.
+	 * @return	the seed, or empty
+	 */
+	public OptionalLong getSeed() {
+		return seed == null ? OptionalLong.empty() : OptionalLong.of(seed);
+	}
+
+	/**
+	 * Returns the file the match is recorded to, or null if it is not recorded. A
+	 * recording holds the seed and the Maneuvers applied each cycle, and can be replayed
+	 * with {@link ErinaConfig#getReplay()}.
+	 * @return	the path of the recording, or null
+	 */
+	public Path getRecording() { return recording; }
+
+	/**
+	 * Returns the recording replayed by the Erina, or null if the match is played. A
+	 * replaying Erina takes the seed and the Maneuvers from the recording and never runs
+	 * the Competitors; it must be set up with the same Competitors as the recorded match.
+	 * @return	the path of the recording to replay, or null
+	 */
+	public Path getReplay() { return replay; }
+
+	/**
+	 * Returns how long a single call of {@link Maneuverable#doManeuver()} may take, or
+	 * null if there is no limit. A call taking longer is cancelled, interrupting the
+	 * thread of the Competitor, the next time the Erina collects Maneuvers.
+	 * @return	the time budget of each call, or null
+	 */
+	public Duration getTimeBudget() { return timeBudget; }
+
+	/**
+	 * Returns the number of cycles a single call of {@link Maneuverable#doManeuver()} may
+	 * take, or 0 if there is no limit. A call that has not returned after that many cycles
+	 * is cancelled, interrupting the thread of the Competitor.
+	 * @return	the cycle budget of each call, or 0
+	 */
+	public int getCycleBudget() { return cycleBudget; }
+
+	/**
+	 * Returns what the Erina applies to a Competitor whose Maneuver is not ready when
+	 * the Erina collects Maneuvers.
+	 * @return	the LatePolicy
+	 */
+	public LatePolicy getLatePolicy() { return latePolicy; }
+
+	/**
+	 * Checks if the Erina times the phases of each cycle. The profile is logged at the
+	 * end of the match, and whenever {@link Erina#logTickProfile()} is called.
+	 * @return	true if profiling, false otherwise
+	 */
+	public boolean isProfiling() { return profiling; }
+
+	/**
+	 * Returns the values of the Nuggets spawned and how often each is picked.
+	 * @return	the SpawnTable of Nugget values
+	 */
+	public SpawnTable getNuggetValues() { return nuggetValues; }
+
+	/**
+	 * Returns the number of Nuggets expected to spawn each cycle while none are in play.
+	 * The rate falls linearly as more Nuggets are in play, down to 0 when there are
+	 * {@link ErinaConfig#getMaxNuggets()}. A rate of 1 or more spawns several Nuggets in
+	 * some or all cycles, for large Erinas.
+	 * @return	the Nugget spawn rate per cycle
+	 */
+	public double getNuggetRate() { return nuggetRate; }
+
+	/**
+	 * Returns the maximum number of Nuggets in play at once, or 0 if there is no limit.
+	 * Without a limit, Nuggets spawn at {@link ErinaConfig#getNuggetRate()} throughout.
+	 * @return	the maximum number of Nuggets, or 0
+	 */
+	public int getMaxNuggets() { return maxNuggets; }
+
+	/**
+	 * Returns the values of the Sauces spawned and how often each is picked.
+	 * @return	the SpawnTable of Sauce values
+	 */
+	public SpawnTable getSauceValues() { return sauceValues; }
+
+	/**
+	 * Returns the number of Sauces expected to spawn each cycle while none are in play,
+	 * falling with the number in play like {@link ErinaConfig#getNuggetRate()} if
+	 * {@link ErinaConfig#getMaxSauces()} is set.
+	 * @return	the Sauce spawn rate per cycle
+	 */
+	public double getSauceRate() { return sauceRate; }
+
+	/**
+	 * Returns the maximum number of Sauces in play at once, or 0 if there is no limit.
+	 * @return	the maximum number of Sauces, or 0
+	 */
+	public int getMaxSauces() { return maxSauces; }
+
+
+	/**
+	 * Returns a Builder holding the settings of this ErinaConfig.
+	 * @return	a new Builder
+	 */
+	Builder toBuilder() {
+		final Builder builder = new Builder();
+		builder.headless = headless;
+		builder.width = width;
+		builder.height = height;
+		builder.maxCycles = maxCycles;
+		builder.energyPerCycle = energyPerCycle;
+		builder.executionMode = executionMode;
+		builder.eventLog = eventLog;
+		builder.seed = seed;
+		builder.recording = recording;
+		builder.replay = replay;
+		builder.timeBudget = timeBudget;
+		builder.cycleBudget = cycleBudget;
+		builder.latePolicy = latePolicy;
+		builder.profiling = profiling;
+		builder.nuggetValues = nuggetValues;
+		builder.nuggetRate = nuggetRate;
+		builder.maxNuggets = maxNuggets;
+		builder.sauceValues = sauceValues;
+		builder.sauceRate = sauceRate;
+		builder.maxSauces = maxSauces;
+		return builder;
+	}
+
+
+	/**
+	 * The kinds of threads Competitors can be run on. Either way, each Competitor is run
+	 * on its own thread and a slow Competitor only slows itself.
+	 */
+	public enum ExecutionMode {
+		/** Competitors run on pooled platform threads. */
+		PLATFORM,
+		/**
+		 * Competitors run on virtual threads, which are cheap to create and to keep
+		 * around in large numbers. Falls back to {@link ExecutionMode#PLATFORM} if the
+		 * JVM does not support virtual threads.
+		 */
+		VIRTUAL
+	}
+
+
+	/**
+	 * What to apply to a Competitor whose Maneuver is not ready when the Erina collects
+	 * Maneuvers. Whatever the policy, each Competitor is asked for at most one Maneuver
+	 * at a time; a Competitor still working on one is not asked for another.
+	 */
+	public enum LatePolicy {
+		/** Nothing is applied, the Competitor stands still. */
+		SKIP,
+		/** The last Maneuver of the Competitor is applied again. */
+		REPEAT_LAST,
+		/**
+		 * When a call is cancelled for running over its budget, the Actions it issued on
+		 * the Maneuver from {@link Competitor#newManeuver()} before being cancelled are
+		 * applied. Otherwise nothing is applied, like {@link LatePolicy#SKIP}. The thread
+		 * of the Competitor may still be issuing Actions when the call is cancelled; the
+		 * Actions applied are those up to the last one fully issued by then.
+		 */
+		PARTIAL
+	}
+
+
+	/**
+	 * Creates ErinaConfig objects. All settings default to the behaviour of the Erina
+	 * running in Greenfoot.
+	 */
+	public static final class Builder {
+		private boolean headless = false;
+		private int width = 1024;
+		private int height = 720;
+		private int maxCycles = 10000;
+		private int energyPerCycle = 1;
+		private ExecutionMode executionMode = ExecutionMode.PLATFORM;
+		private Path eventLog = null;
+		private Long seed = null;
+		private Path recording = null;
+		private Path replay = null;
+		private Duration timeBudget = null;
+		private int cycleBudget = 0;
+		private LatePolicy latePolicy = LatePolicy.SKIP;
+		private boolean profiling = false;
+		private SpawnTable nuggetValues = SpawnTable.DEFAULT;
+		private double nuggetRate = 0.01;
+		private int maxNuggets = 15;
+		private SpawnTable sauceValues = SpawnTable.DEFAULT;
+		// about the same frequency as the original Arena, which added a Sauce every 200
+		// cycles plus a random number from 0 to 299
+		private double sauceRate = 1d / 350;
+		private int maxSauces = 0;
+
+		/**
+		 * Sets whether the Erina should run headless.
+		 * @param headless	true to run headless
+		 * @return	this instance
+		 * @see	ErinaConfig#isHeadless()
+		 */
+		public Builder headless(boolean headless) {
+			this.headless = headless;
+			return this;
+		}
+
+		/**
+		 * Sets the size of the Erina.
+		 * @param width	the width in pixels
+		 * @param height	the height in pixels
+		 * @return	this instance
+		 * @throws IllegalArgumentException	if the width or height is not positive
+		 * @see	ErinaConfig#getWidth()
+		 * @see	ErinaConfig#getHeight()
+		 */
+		public Builder size(int width, int height) {
+			if (width <= 0 || height <= 0)
+				throw new IllegalArgumentException("Illegal size: " + width + "x" + height);
+			this.width = width;
+			this.height = height;
+			return this;
+		}
+
+		/**
+		 * Sets the maximum number of cycles before the match ends.
+		 * @param maxCycles	the maximum number of cycles
+		 * @return	this instance
+		 * @throws IllegalArgumentException	if the maximum is not positive
+		 * @see	ErinaConfig#getMaxCycles()
+		 */
+		public Builder maxCycles(int maxCycles) {
+			if (maxCycles <= 0)
+				throw new IllegalArgumentException("Illegal maximum: " + maxCycles);
+			this.maxCycles = maxCycles;
+			return this;
+		}
+
+		/**
+		 * Sets the energy rewarded to surviving Competitors each cycle.
+		 * @param energyPerCycle	the energy per cycle, may be 0 or negative
+		 * @return	this instance
+		 * @see	ErinaConfig#getEnergyPerCycle()
+		 */
+		public Builder energyPerCycle(int energyPerCycle) {
+			this.energyPerCycle = energyPerCycle;
+			return this;
+		}
+
+		/**
+		 * Sets the kind of threads Competitors are run on.
+		 * @param executionMode	the ExecutionMode
+		 * @return	this instance
+		 * @see	ErinaConfig#getExecutionMode()
+		 */
+		public Builder executionMode(ExecutionMode executionMode) {
+			this.executionMode = Objects.requireNonNull(executionMode);
+			return this;
+		}
+
+		/**
+		 * Sets the file the binary {@link EventLog} of the match is written to.
+		 * @param eventLog	the path of the event log, null to write none
+		 * @return	this instance
+		 * @see	ErinaConfig#getEventLog()
+		 */
+		public Builder eventLog(Path eventLog) {
+			this.eventLog = eventLog;
+			return this;
+		}
+
+		/**
+		 * Sets the seed of the match.
+		 * @param seed	the seed
+		 * @return	this instance
+		 * @see	ErinaConfig#getSeed()
+		 */
+		public Builder seed(long seed) {
+			this.seed = seed;
+			return this;
+		}
+
+		/**
+		 * Sets the file the match is recorded to.
+		 * @param recording	the path of the recording, null to record none
+		 * @return	this instance
+		 * @see	ErinaConfig#getRecording()
+		 */
+		public Builder recording(Path recording) {
+			this.recording = recording;
+			return this;
+		}
+
+		/**
+		 * Sets the recording to replay instead of playing the match. The seed of the
+		 * recording takes the place of any seed set.
+		 * @param replay	the path of the recording, null to play the match
+		 * @return	this instance
+		 * @see	ErinaConfig#getReplay()
+		 */
+		public Builder replay(Path replay) {
+			this.replay = replay;
+			return this;
+		}
+
+		/**
+		 * Sets how long a single call of {@link Maneuverable#doManeuver()} may take.
+		 * @param timeBudget	the time budget, null for no limit
+		 * @return	this instance
+		 * @throws IllegalArgumentException	if the time budget is not positive
+		 * @see	ErinaConfig#getTimeBudget()
+		 */
+		public Builder timeBudget(Duration timeBudget) {
+			if (timeBudget != null && (timeBudget.isNegative() || timeBudget.isZero()))
+				throw new IllegalArgumentException("Illegal time budget: " + timeBudget);
+			this.timeBudget = timeBudget;
+			return this;
+		}
+
+		/**
+		 * Sets the number of cycles a single call of {@link Maneuverable#doManeuver()} may
+		 * take.
+		 * @param cycleBudget	the cycle budget, 0 for no limit
+		 * @return	this instance
+		 * @throws IllegalArgumentException	if the cycle budget is negative
+		 * @see	ErinaConfig#getCycleBudget()
+		 */
+		public Builder cycleBudget(int cycleBudget) {
+			if (cycleBudget < 0)
+				throw new IllegalArgumentException("Illegal cycle budget: " + cycleBudget);
+			this.cycleBudget = cycleBudget;
+			return this;
+		}
+
+		/**
+		 * Sets what the Erina applies to a Competitor whose Maneuver is late.
+		 * @param latePolicy	the LatePolicy
+		 * @return	this instance
+		 * @see	ErinaConfig#getLatePolicy()
+		 */
+		public Builder latePolicy(LatePolicy latePolicy) {
+			this.latePolicy = Objects.requireNonNull(latePolicy);
+			return this;
+		}
+
+		/**
+		 * Sets whether the Erina times the phases of each cycle.
+		 * @param profiling	true to profile, false otherwise
+		 * @return	this instance
+		 * @see	ErinaConfig#isProfiling()
+		 */
+		public Builder profiling(boolean profiling) {
+			this.profiling = profiling;
+			return this;
+		}
+
+		/**
+		 * Sets the values of the Nuggets spawned.
+		 * @param nuggetValues	the SpawnTable of Nugget values
+		 * @return	this instance
+		 * @see	ErinaConfig#getNuggetValues()
+		 */
+		public Builder nuggetValues(SpawnTable nuggetValues) {
+			this.nuggetValues = Objects.requireNonNull(nuggetValues);
+			return this;
+		}
+
+		/**
+		 * Sets the number of Nuggets expected to spawn each cycle while none are in play.
+		 * @param nuggetRate	the Nugget spawn rate per cycle
+		 * @return	this instance
+		 * @throws IllegalArgumentException	if the rate is negative or not finite
+		 * @see	ErinaConfig#getNuggetRate()
+		 */
+		public Builder nuggetRate(double nuggetRate) {
+			this.nuggetRate = checkRate(nuggetRate);
+			return this;
+		}
+
+		/**
+		 * Sets the maximum number of Nuggets in play at once.
+		 * @param maxNuggets	the maximum number of Nuggets, 0 for no limit
+		 * @return	this instance
+		 * @throws IllegalArgumentException	if the maximum is negative
+		 * @see	ErinaConfig#getMaxNuggets()
+		 */
+		public Builder maxNuggets(int maxNuggets) {
+			if (maxNuggets < 0)
+				throw new IllegalArgumentException("Illegal maximum: " + maxNuggets);
+			this.maxNuggets = maxNuggets;
+			return this;
+		}
+
+		/**
+		 * Sets the values of the Sauces spawned.
+		 * @param sauceValues	the SpawnTable of Sauce values
+		 * @return	this instance
+		 * @see	ErinaConfig#getSauceValues()
+		 */
+		public Builder sauceValues(SpawnTable sauceValues) {
+			this.sauceValues = Objects.requireNonNull(sauceValues);
+			return this;
+		}
+
+		/**
+		 * Sets the number of Sauces expected to spawn each cycle while none are in play.
+		 * @param sauceRate	the Sauce spawn rate per cycle
+		 * @return	this instance
+		 * @throws IllegalArgumentException	if the rate is negative or not finite
+		 * @see	ErinaConfig#getSauceRate()
+		 */
+		public Builder sauceRate(double sauceRate) {
+			this.sauceRate = checkRate(sauceRate);
+			return this;
+		}
+
+		/**
+		 * Sets the maximum number of Sauces in play at once.
+		 * @param maxSauces	the maximum number of Sauces, 0 for no limit
+		 * @return	this instance
+		 * @throws IllegalArgumentException	if the maximum is negative
+		 * @see	ErinaConfig#getMaxSauces()
+		 */
+		public Builder maxSauces(int maxSauces) {
+			if (maxSauces < 0)
+				throw new IllegalArgumentException("Illegal maximum: " + maxSauces);
+			this.maxSauces = maxSauces;
+			return this;
+		}
+
+		/**
+		 * Sets a setting from its name and value as text, as found in a properties file
+		 * or on the command line. The names and the form of their values are:
+		 * <pre>
+		 *   headless        true|false
+		 *   width           pixels
+		 *   height          pixels
+		 *   maxCycles       cycles
+		 *   energyPerCycle  energy
+		 *   executionMode   PLATFORM|VIRTUAL
+		 *   eventLog        file
+		 *   seed            long
+		 *   record          file
+		 *   replay          file
+		 *   timeBudget      milliseconds
+		 *   cycleBudget     cycles
+		 *   latePolicy      SKIP|REPEAT_LAST|PARTIAL
+		 *   profiling       true|false
+		 *   nuggetValues    value:weight,...
+		 *   nuggetRate      spawns per cycle
+		 *   maxNuggets      count, 0 for no limit
+		 *   sauceValues     value:weight,...
+		 *   sauceRate       spawns per cycle
+		 *   maxSauces       count, 0 for no limit
+		 * </pre>
+		 * @param name	the name of the setting
+		 * @param value	the value of the setting
+		 * @return	this instance
+		 * @throws IllegalArgumentException	if the name is unknown or the value is illegal
+		 */
+		public Builder set(String name, String value) {
+			final String text = value.trim();
+			try {
+				switch (name) {
+					case "headless": return headless(Boolean.parseBoolean(text));
+					case "width": return size(Integer.parseInt(text), height);
+					case "height": return size(width, Integer.parseInt(text));
+					case "maxCycles": return maxCycles(Integer.parseInt(text));
+					case "energyPerCycle": return energyPerCycle(Integer.parseInt(text));
+					case "executionMode": return executionMode(ExecutionMode.valueOf(text));
+					case "eventLog": return eventLog(Paths.get(text));
+					case "seed": return seed(Long.parseLong(text));
+					case "record": return recording(Paths.get(text));
+					case "replay": return replay(Paths.get(text));
+					case "timeBudget": return timeBudget(Duration.ofMillis(Long.parseLong(text)));
+					case "cycleBudget": return cycleBudget(Integer.parseInt(text));
+					case "latePolicy": return latePolicy(LatePolicy.valueOf(text));
+					case "profiling": return profiling(Boolean.parseBoolean(text));
+					case "nuggetValues": return nuggetValues(SpawnTable.parse(text));
+					case "nuggetRate": return nuggetRate(Double.parseDouble(text));
+					case "maxNuggets": return maxNuggets(Integer.parseInt(text));
+					case "sauceValues": return sauceValues(SpawnTable.parse(text));
+					case "sauceRate": return sauceRate(Double.parseDouble(text));
+					case "maxSauces": return maxSauces(Integer.parseInt(text));
+					default: throw new IllegalArgumentException("Unknown setting: " + name);
+				}
+			}
+			catch (NumberFormatException e) {
+				throw new IllegalArgumentException(
+						"Illegal value of " + name + ": " + value, e);
+			}
+		}
+
+		/**
+		 * Sets every setting in the specified Properties.
+		 * @param properties	the settings by name, see {@link Builder#set(String, String)}
+		 * @return	this instance
+		 * @throws IllegalArgumentException	if a name is unknown or a value is illegal
+		 */
+		public Builder set(Properties properties) {
+			for (String name : properties.stringPropertyNames())
+				set(name, properties.getProperty(name));
+			return this;
+		}
+
+		/**
+		 * Sets every setting in the specified properties file.
+		 * @param path	the properties file, see {@link Builder#set(String, String)}
+		 * @return	this instance
+		 * @throws IOException	if the file cannot be read
+		 * @throws IllegalArgumentException	if a name is unknown or a value is illegal
+		 */
+		public Builder load(Path path) throws IOException {
+			final Properties properties = new Properties();
+			try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+				properties.load(reader);
+			}
+			return set(properties);
+		}
+
+		private static double checkRate(double rate) {
+			if (!(rate >= 0) || Double.isInfinite(rate))
+				throw new IllegalArgumentException("Illegal spawn rate: " + rate);
+			return rate;
+		}
+
+		/**
+		 * Creates an ErinaConfig with the settings in this Builder.
+		 * @return	the ErinaConfig
+		 */
+		public ErinaConfig build() { return new ErinaConfig(this); }
+	}
+}
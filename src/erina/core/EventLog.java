@@ -0,0 +1,241 @@
+package erina.core;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A binary log of the events of a match: collisions, consumptions and deaths. Unlike the
+ * text log, the event log is meant to be read by programs; {@link EventLog#read(Path,
+ * Visitor)} scans millions of events per second.
+ *
+ * <p>The file starts with a header of {@value #HEADER_SIZE} bytes: the magic number
+ * {@value #MAGIC}, the version and the size of each record, as longs and ints. Records of
+ * {@value #RECORD_SIZE} bytes follow, all little-endian:
+ * <pre>
+ *   long  cycle
+ *   short type      one of the event types in this class
+ *   short reserved  always 0
+ *   int   subject   id of the Entity the event happened to
+ *   int   object    id of the other Entity involved, or -1
+ *   int   value     damage, energy gained, etc. depending on the type
+ * </pre>
+ *
+ * <p>Ids are only meaningful within a match. The names of the Entities are written to a
+ * text file next to the log, see {@link EventLog#readNames(Path)}.
+ *
+ * <p>Records are gathered in a buffer and written through a FileChannel whenever the
+ * buffer is full, so the Erina does not do I/O for every event.
+ *
+ * @version 1.0
+ * @author Eric
+ */
+public final class EventLog implements Closeable {
+
+	/** The first 8 bytes of every event log. */
+	public static final long MAGIC = 0x45524E41_4556544CL;	// "ERNAEVTL"
+
+	/** The version of the format described above. */
+	public static final int VERSION = 1;
+
+	/** The size of the header in bytes. */
+	public static final int HEADER_SIZE = 16;
+
+	/** The size of each record in bytes. */
+	public static final int RECORD_SIZE = 24;
+
+
+	/**
+	 * A Competitor consumed a Nugget. The object is the Nugget, the value is the energy
+	 * gained.
+	 */
+	public static final int NUGGET_CONSUMED = 1;
+
+	/**
+	 * A Competitor consumed a Sauce. The object is the Sauce, the value is the energy
+	 * gained.
+	 */
+	public static final int SAUCE_CONSUMED = 2;
+
+	/**
+	 * A Competitor took damage in a collision. The object is the attacker, the value is
+	 * the damage.
+	 */
+	public static final int DAMAGE = 3;
+
+	/** A Competitor died. The object is the killer, the value is 0. */
+	public static final int DEATH = 4;
+
+
+	private static final int BUFFER_SIZE = RECORD_SIZE * 4096;
+
+	private final FileChannel channel;
+	private final ByteBuffer buffer =
+			ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+
+	/**
+	 * Creates an event log at the specified path, replacing any existing file.
+	 * @param path	the file to write to
+	 * @throws IOException	if the file cannot be opened
+	 */
+	EventLog(Path path) throws IOException {
+		channel = FileChannel.open(path,
+				StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+
+		buffer.putLong(MAGIC).putInt(VERSION).putInt(RECORD_SIZE);
+	}
+
+
+	/**
+	 * Appends a record. The record is written to the file once the buffer is full or
+	 * the log is closed.
+	 * @param cycle	the cycle the event happened in
+	 * @param type	the type of the event
+	 * @param subject	the id of the Entity the event happened to
+	 * @param object	the id of the other Entity involved, or -1
+	 * @param value	the value of the event
+	 * @throws IOException	if the buffer could not be written
+	 */
+	void record(long cycle, int type, int subject, int object, int value)
+			throws IOException {
+		if (buffer.remaining() < RECORD_SIZE)
+			drain();
+
+		buffer.putLong(cycle)
+				.putShort((short) type)
+				.putShort((short) 0)
+				.putInt(subject)
+				.putInt(object)
+				.putInt(value);
+	}
+
+	/**
+	 * Writes the id, type and name of every Entity in the EntityStore to the file of
+	 * names next to the log.
+	 * @param log	the path of the log
+	 */
+	static void writeNames(Path log, EntityStore store) throws IOException {
+		try (BufferedWriter writer = Files.newBufferedWriter(namesOf(log))) {
+			for (int id = 0; id < store.size(); id++) {
+				writer.write(id + "\t" + store.getType(id) + "\t" + store.getEntity(id));
+				writer.newLine();
+			}
+		}
+	}
+
+	private void drain() throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining())
+			channel.write(buffer);
+		buffer.clear();
+	}
+
+	/**
+	 * Writes all buffered records and closes the file.
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			drain();
+		}
+		finally {
+			channel.close();
+		}
+	}
+
+
+
+	/**
+	 * Receives the records of an event log, see {@link EventLog} for the meaning of
+	 * each value.
+	 */
+	public interface Visitor {
+		void visit(long cycle, int type, int subject, int object, int value);
+	}
+
+	/**
+	 * Reads all records of the event log at the specified path in order.
+	 * @param path	the event log
+	 * @param visitor	receives each record
+	 * @return	the number of records read
+	 * @throws IOException	if the file cannot be read or is not an event log of this
+	 * version
+	 */
+	public static long read(Path path, Visitor visitor) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			final long size = channel.size();
+			if (size < HEADER_SIZE)
+				throw new IOException("Not an event log: " + path);
+
+			// map at most about 1 GiB at a time, whole records only
+			final long chunk = (Integer.MAX_VALUE / 2 / RECORD_SIZE) * RECORD_SIZE;
+			long count = 0;
+
+			for (long position = 0; position < size; ) {
+				final MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY,
+						position, Math.min(chunk, size - position));
+				map.order(ByteOrder.LITTLE_ENDIAN);
+
+				if (position == 0) {
+					if (map.getLong() != MAGIC || map.getInt() != VERSION
+							|| map.getInt() != RECORD_SIZE)
+						throw new IOException("Not an event log of version " + VERSION
+								+ ": " + path);
+				}
+
+				while (map.remaining() >= RECORD_SIZE) {
+					final long cycle = map.getLong();
+					final int type = map.getShort();
+					map.getShort();	// reserved
+					visitor.visit(cycle, type, map.getInt(), map.getInt(), map.getInt());
+					count++;
+				}
+
+				position += map.position();
+				if (map.position() == 0)
+					break;	// trailing partial record
+			}
+
+			return count;
+		}
+	}
+
+	/**
+	 * Reads the names of the Entities of the event log at the specified path.
+	 * @param log	the event log
+	 * @return	the names of the Entities by id
+	 * @throws IOException	if the file of names cannot be read
+	 */
+	public static Map<Integer, String> readNames(Path log) throws IOException {
+		final List<String> lines = Files.readAllLines(namesOf(log), StandardCharsets.UTF_8);
+		final Map<Integer, String> names = new LinkedHashMap<>();
+
+		for (String line : lines) {
+			final String[] fields = line.split("\t", 3);
+			if (fields.length == 3)
+				names.put(Integer.parseInt(fields[0]), fields[2]);
+		}
+
+		return names;
+	}
+
+	/** Returns the path of the file of names of the specified log. */
+	private static Path namesOf(Path log) {
+		final Path name = Paths.get(log.getFileName() + ".names");
+		return log.getParent() == null ? name : log.getParent().resolve(name);
+	}
+}
@@ -0,0 +1,122 @@
+package erina.core;
+
+/**
+ * A histogram of durations in nanoseconds with log-linear buckets, in the manner of
+ * HdrHistogram. Each power of two is split into {@value #SUB_BUCKETS} equal buckets, so
+ * every recorded value is known to within about 3% while the whole histogram takes a few
+ * kilobytes and recording is a handful of instructions. Durations up to about a minute
+ * are bucketed, longer ones are counted in the last bucket, but the maximum is exact.
+ *
+ * <p>Recording and reading are synchronized, as durations are recorded on the threads of
+ * the Competitors while the Erina may read them at any time. The lock is uncontended
+ * almost always.
+ *
+ * @version 1.0
+ * @author Eric
+ */
+public final class LatencyHistogram {
+
+	// each power of two above 2 * SUB_BUCKETS is split into SUB_BUCKETS buckets
+	private static final int SUB_BITS = 5;
+	private static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+	// values from 2^36 ns, about 69 seconds, land in the last bucket
+	private static final int MAX_BITS = 36;
+	private static final int BUCKETS = indexOf((1L << MAX_BITS) - 1) + 1;
+
+	private final long[] counts = new long[BUCKETS];
+	private long count, total, max;
+
+
+	/** Creates an empty LatencyHistogram. */
+	LatencyHistogram() {}
+
+	/** Creates a LatencyHistogram holding the same values as the specified one. */
+	LatencyHistogram(LatencyHistogram histogram) {
+		synchronized (histogram) {
+			System.arraycopy(histogram.counts, 0, counts, 0, BUCKETS);
+			count = histogram.count;
+			total = histogram.total;
+			max = histogram.max;
+		}
+	}
+
+
+	/**
+	 * Records a duration. Negative durations are recorded as 0.
+	 * @param nanos	the duration in nanoseconds
+	 */
+	synchronized void record(long nanos) {
+		if (nanos < 0)
+			nanos = 0;
+
+		counts[Math.min(indexOf(nanos), BUCKETS - 1)]++;
+		count++;
+		total += nanos;
+		if (nanos > max)
+			max = nanos;
+	}
+
+	/** Returns the bucket of the value, linear below 2 * SUB_BUCKETS. */
+	private static int indexOf(long value) {
+		if (value < 2 * SUB_BUCKETS)
+			return (int) value;
+
+		final int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+		return (shift + 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+	}
+
+	/** Returns the highest value falling in the bucket. */
+	private static long highestValueOf(int index) {
+		if (index < 2 * SUB_BUCKETS)
+			return index;
+
+		final int shift = index / SUB_BUCKETS - 1;
+		final long lowest = (long) (index % SUB_BUCKETS + SUB_BUCKETS) << shift;
+		return lowest + (1L << shift) - 1;
+	}
+
+
+	/** Returns the number of durations recorded. */
+	public synchronized long getCount() { return count; }
+
+	/** Returns the longest duration recorded in nanoseconds, 0 if none. */
+	public synchronized long getMax() { return max; }
+
+	/** Returns the mean of the durations recorded in nanoseconds, 0 if none. */
+	public synchronized double getMean() { return count == 0 ? 0 : (double) total / count; }
+
+	/**
+	 * Returns the duration at the specified percentile: at least that percentage of the
+	 * recorded durations are no longer than the returned duration, to within the
+	 * precision of the buckets.
+	 * @param percentile	the percentile, from 0 to 100
+	 * @return	the duration in nanoseconds, 0 if none recorded
+	 * @throws IllegalArgumentException	if the percentile is not between 0 and 100
+	 */
+	public synchronized long getPercentile(double percentile) {
+		if (!(percentile >= 0 && percentile <= 100))
+			throw new IllegalArgumentException("Illegal percentile: " + percentile);
+		if (count == 0)
+			return 0;
+
+		final long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += counts[i];
+			if (seen >= rank)
+				return Math.min(highestValueOf(i), max);
+		}
+		return max;
+	}
+
+
+	/**
+	 * Returns the count, median, 99th percentile and maximum in microseconds.
+	 */
+	@Override
+	public synchronized String toString() {
+		return String.format("n=%d p50=%.1fus p99=%.1fus max=%.1fus",
+				count, getPercentile(50) / 1e3, getPercentile(99) / 1e3, max / 1e3);
+	}
+}
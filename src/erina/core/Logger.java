@@ -1,43 +1,89 @@
 package erina.core;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.IllegalFormatException;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * Log events happened in the Erina.
  *
- * @version 1.0
+ * <p>Logging never blocks on I/O. Messages are put on a bounded ring buffer and written
+ * in batches by a background thread, which also does the formatting. Arguments are
+ * therefore formatted some time after they are logged, and must not change in between.
+ * If the buffer is full, messages are dropped and the number of dropped messages is
+ * logged once there is room again. Messages still in the buffer when the JVM shuts down
+ * are written before it exits.
+ *
+ * <p>The log goes to stdout unless configured otherwise with system properties:
+ * <ul>
+ *     <li>{@code erina.log=file} writes the log to files instead of stdout</li>
+ *     <li>{@code erina.log.file} the name of the log files without extension,
+ *     Erina_&lt;date and time&gt; by default</li>
+ *     <li>{@code erina.log.maxBytes} the size at which a log file is closed and the next
+ *     one is started, 16 MiB by default</li>
+ *     <li>{@code erina.log.gzip=true} compresses the log files</li>
+ *     <li>{@code erina.log.buffer} the number of messages the buffer holds, 65536 by
+ *     default</li>
+ * </ul>
+ *
+ * @version 1.1
  * @author Eric
  */
 class Logger {
 
-	private static final Writer OUTPUT;
+	// maximum number of messages written at once
+	private static final int BATCH_SIZE = 1024;
+
+	private static final BlockingQueue<Message> BUFFER =
+			new ArrayBlockingQueue<>(Integer.getInteger("erina.log.buffer", 1 << 16));
+
+	private static final AtomicLong DROPPED = new AtomicLong();
+
+	private static final Sink OUTPUT;
+
+	private static final Thread WRITER;
 
 	static {
-		// stdout
-		OUTPUT = new BufferedWriter(new OutputStreamWriter(System.out));
-
-		// or some file
-//		final String fileName = "Erina_" + LocalDateTime.now().toString() + ".log";
-//
-//		Writer tempWriter;
-//		try {
-//			tempWriter = Files.newBufferedWriter(Paths.get(fileName));
-//		}
-//		catch (IOException e) {
-//			System.err.println("Failed to open file: " + fileName);
-//			e.printStackTrace();
-//			tempWriter = new BufferedWriter(new OutputStreamWriter(System.out));
-//		}
-//
-//		OUTPUT = tempWriter;
+		Sink sink = new StdoutSink();
+
+		if ("file".equals(System.getProperty("erina.log"))) {
+			final String name = System.getProperty("erina.log.file",
+					"Erina_" + LocalDateTime.now().format(
+							DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm-ss")));
+			try {
+				sink = new RotatingFileSink(name,
+						Long.getLong("erina.log.maxBytes", 16 << 20),
+						Boolean.getBoolean("erina.log.gzip"));
+			}
+			catch (IOException e) {
+				System.err.println("Failed to open file: " + name);
+				e.printStackTrace();
+			}
+		}
+
+		OUTPUT = sink;
+
+		WRITER = new Thread(Logger::writeContinuously, "Erina-Logger");
+		WRITER.setDaemon(true);	// must not keep the JVM alive, see shutdown()
+		WRITER.start();
+
+		Runtime.getRuntime().addShutdownHook(new Thread(Logger::shutdown));
 	}
 
 	/**
 	 * Logs a message like printf.
 	 */
 	static void log(String message, Object... args) {
-		message = String.format(message, args);
-		tryWrite(message);
+		if (!BUFFER.offer(new Message(message, args)))
+			DROPPED.incrementAndGet();	// never wait for the writer
 	}
 
 	/**
@@ -56,16 +102,195 @@ class Logger {
 
 
 	/**
-	 * Writes and flushes without throwing checked exceptions.
+	 * Writes messages as they arrive until interrupted. Runs on the writer thread.
 	 */
-	private static void tryWrite(String message) {
+	private static void writeContinuously() {
+		final List<Message> batch = new ArrayList<>(BATCH_SIZE);
+
+		while (true) {
+			try {
+				batch.add(BUFFER.take());
+			}
+			catch (InterruptedException e) {
+				return;	// shutting down
+			}
+
+			BUFFER.drainTo(batch, BATCH_SIZE - 1);
+			tryWrite(batch);
+			batch.clear();
+		}
+	}
+
+	/**
+	 * Stops the writer thread and writes whatever is left in the buffer.
+	 */
+	private static void shutdown() {
+		WRITER.interrupt();
 		try {
-			OUTPUT.write(message);
-			OUTPUT.flush();
+			WRITER.join(1000);
+		}
+		catch (InterruptedException ignored) {}
+
+		final List<Message> rest = new ArrayList<>();
+		BUFFER.drainTo(rest);
+		tryWrite(rest);
+
+		synchronized (OUTPUT) {
+			try {
+				OUTPUT.close();
+			}
+			catch (IOException e) {
+				System.err.println("Exception occurred while closing the log");
+				e.printStackTrace();
+			}
+		}
+	}
+
+	/**
+	 * Formats, writes and flushes a batch of messages without throwing checked
+	 * exceptions.
+	 */
+	private static void tryWrite(List<Message> batch) {
+		final StringBuilder text = new StringBuilder();
+
+		final long dropped = DROPPED.getAndSet(0);
+		if (dropped > 0)
+			text.append(String.format("[Logger] %d messages dropped%n", dropped));
+
+		for (Message message : batch) {
+			try {
+				text.append(String.format(message.format, message.args));
+			}
+			catch (IllegalFormatException e) {
+				text.append(message.format).append(System.lineSeparator());
+			}
+		}
+
+		if (text.length() == 0)
+			return;
+
+		synchronized (OUTPUT) {
+			try {
+				OUTPUT.write(text);
+			}
+			catch (IOException e) {
+				System.err.println("Exception occurred while logging");
+				e.printStackTrace();
+			}
+		}
+	}
+
+
+	/**
+	 * A message waiting to be formatted and written.
+	 */
+	private static final class Message {
+		private final String format;
+		private final Object[] args;
+
+		private Message(String format, Object[] args) {
+			this.format = format;
+			this.args = args;
 		}
-		catch (IOException e) {
-			System.err.println("Exception occurred while logging");
-			e.printStackTrace();
+	}
+
+
+	/**
+	 * Where the log goes. Sinks are only used by one thread at a time.
+	 */
+	private interface Sink extends Closeable {
+		/** Writes and flushes the text. */
+		void write(CharSequence text) throws IOException;
+	}
+
+	/**
+	 * Writes to stdout. Each batch is printed at once, so lines printed by others do not
+	 * end up in the middle of a batch.
+	 */
+	private static final class StdoutSink implements Sink {
+		@Override
+		public void write(CharSequence text) {
+			System.out.print(text);
+			System.out.flush();
+		}
+
+		@Override
+		public void close() {
+			System.out.flush();
+		}
+	}
+
+	/**
+	 * Writes to a series of files, starting the next file once the current one has grown
+	 * past a limit. Files are named &lt;name&gt;.log, &lt;name&gt;.1.log, &lt;name&gt;.2.log,
+	 * etc., with .gz appended if compressed. Files are only rotated between batches.
+	 */
+	private static final class RotatingFileSink implements Sink {
+		private final String name;
+		private final long maxBytes;
+		private final boolean gzip;
+
+		private int index = 0;
+		private CountingOutputStream file;
+		private Writer writer;
+
+		private RotatingFileSink(String name, long maxBytes, boolean gzip)
+				throws IOException {
+			this.name = name;
+			this.maxBytes = maxBytes;
+			this.gzip = gzip;
+			open();
 		}
+
+		private void open() throws IOException {
+			final String fileName = name + (index == 0 ? "" : "." + index) + ".log"
+					+ (gzip ? ".gz" : "");
+			index++;
+
+			file = new CountingOutputStream(new FileOutputStream(fileName));
+			final OutputStream stream = gzip ?
+					new GZIPOutputStream(file, 1 << 16, true) : file;
+			writer = new BufferedWriter(
+					new OutputStreamWriter(stream, StandardCharsets.UTF_8), 1 << 16);
+		}
+
+		@Override
+		public void write(CharSequence text) throws IOException {
+			writer.append(text);
+			writer.flush();
+
+			if (file.getCount() >= maxBytes) {
+				writer.close();
+				open();
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			writer.close();
+		}
+	}
+
+	/**
+	 * Counts the bytes written to a stream.
+	 */
+	private static final class CountingOutputStream extends FilterOutputStream {
+		private long count = 0;
+
+		private CountingOutputStream(OutputStream out) { super(out); }
+
+		@Override
+		public void write(int b) throws IOException {
+			out.write(b);
+			count++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			out.write(b, off, len);
+			count += len;
+		}
+
+		private long getCount() { return count; }
 	}
 }
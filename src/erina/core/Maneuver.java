@@ -1,13 +1,12 @@
 package erina.core;
 
-import java.util.Iterator;
-import java.util.Queue;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 /**
  * A Maneuver describes a set of turnings and movements.
  *
- * @version 1.0
+ * @version 1.2
  * @author Eric
  */
 public class Maneuver {
@@ -15,14 +14,35 @@ public class Maneuver {
 	/*
 	Note:
 	Competitors produce Maneuvers, Erina (specifically ManeuverHandler) consumes Maneuvers.
-	The former and the latter run on separate threads. Operations on Maneuver objects
-	should be synchronized.
+	The former and the latter run on separate threads. A Maneuver is built by a single
+	thread and handed to the Erina exactly once, through the lock of the ManeuverFetcher,
+	which publishes it safely. Maneuvers are therefore not synchronized. Competitors that
+	keep changing a Maneuver after handing it over only get unpredictable Maneuvers, see
+	applyTo.
+
+	The one exception is the Maneuver a Competitor is building when its call is cancelled,
+	which LatePolicy.PARTIAL copies while the Competitor may still be adding to it. Each
+	Action is therefore published with a release write of the number of ints written,
+	after both ints of the Action; the buffer itself is volatile as it may be replaced.
+	copyTo reads that number before the buffer, so the copy holds the Actions up to the
+	last one published, never a torn one.
 	 */
 
-	private final Queue<Action> actions = new ConcurrentLinkedQueue<>();
+	/** Kind of Actions moving a distance. */
+	static final int ADVANCE = 0;
+	/** Kind of Actions turning an angle. */
+	static final int TURN = 1;
 
-	private final int initialX, initialY;
-	private volatile int x, y, direction;
+	// the Actions in order, each the kind followed by the value
+	private volatile int[] actions = new int[16];
+	private int size = 0;
+	// size as published to other threads, see the note above
+	private volatile int published = 0;
+	private static final AtomicIntegerFieldUpdater<Maneuver> PUBLISHED =
+			AtomicIntegerFieldUpdater.newUpdater(Maneuver.class, "published");
+
+	private int initialX, initialY;
+	private int x, y, direction;
 
 	/**
 	 * Creates a new Maneuver that starts at the specified location direction the specified
@@ -32,19 +52,14 @@ public class Maneuver {
 	 * @param direction	the starting direction in degrees
 	 */
 	public Maneuver(int x, int y, int direction) {
-		initialX = x;
-		this.x = x;
-
-		initialY = y;
-		this.y = y;
-
-		this.direction = direction;
+		reset(x, y, direction);
 	}
 
 	/**
 	 * Creates a new Maneuver that starts at the location of the specified Entity and
 	 * faces in the same direction as the Entity.
 	 * @param entity	the Entity to acquire location and direction from
+	 * @see	Competitor#newManeuver()
 	 */
 	public Maneuver(Entity<?, ?> entity) {
 		this(
@@ -54,6 +69,22 @@ public class Maneuver {
 		);
 	}
 
+	/**
+	 * Removes all Actions and starts over from the specified location and direction,
+	 * keeping the buffer of Actions for reuse.
+	 * @return	this instance
+	 */
+	final Maneuver reset(int x, int y, int direction) {
+		size = 0;
+		PUBLISHED.lazySet(this, 0);
+		initialX = x;
+		this.x = x;
+		initialY = y;
+		this.y = y;
+		this.direction = direction;
+		return this;
+	}
+
 
 	/**
 	 * Issues a move of the specified distance in the current direction.
@@ -61,8 +92,12 @@ public class Maneuver {
 	 * @return	this instance
 	 * @see	greenfoot.Actor#move(int)
 	 */
-	public synchronized Maneuver move(int distance) {
-		actions.add(new Advance(distance));
+	public Maneuver move(int distance) {
+		// if malicious attempt to cause overflow
+		if (distance == Integer.MIN_VALUE)
+			distance = distance+1;
+
+		add(ADVANCE, distance);
 
 		// negative direction because we are counting clockwise as positive
 		final double rads = Math.toRadians(-direction);
@@ -80,8 +115,8 @@ public class Maneuver {
 	 * @return	this instance
 	 * @see	greenfoot.Actor#turn(int)
 	 */
-	public synchronized Maneuver turn(int degrees) {
-		actions.add(new Turn(degrees));
+	public Maneuver turn(int degrees) {
+		add(TURN, degrees);
 
 		setDirection(getDirection() + degrees);
 
@@ -95,7 +130,7 @@ public class Maneuver {
 	 * @return	this instance
 	 * @see	greenfoot.Actor#turnTowards(int, int)
 	 */
-	public synchronized Maneuver turnTowards(int x, int y) {
+	public Maneuver turnTowards(int x, int y) {
 		double rads = Math.atan2(y - getY(), x - getX());
 
 		final int degrees = (int) Math.round(Math.toDegrees(rads));
@@ -103,6 +138,17 @@ public class Maneuver {
 		return turn(degrees - getDirection());
 	}
 
+	private void add(int kind, int value) {
+		int[] actions = this.actions;
+		if (size == actions.length)
+			actions = this.actions = Arrays.copyOf(actions, size * 2);
+
+		actions[size] = kind;
+		actions[size + 1] = value;
+		size += 2;
+		PUBLISHED.lazySet(this, size);
+	}
+
 
 	/**
 	 * Returns the x location as if previously issued actions were executed.
@@ -135,116 +181,131 @@ public class Maneuver {
 	public int getDirection() { return direction; }
 
 
-	Queue<Action> getActions() { return actions; }
-
-
 	private void setX(int x) { this.x = x; }
 	private void setY(int y) { this.y = y; }
 	private void setDirection(int direction) { this.direction = direction; }
 
 
 	/**
-	 * Apply all Actions in this Maneuver to the specified Competitor.
+	 * Returns a Maneuver with the Actions issued so far. Actions issued to this Maneuver
+	 * later are not in the copy.
 	 */
-	final void applyTo(Competitor competitor) {
-		actions.forEach(action -> action.applyTo(competitor));
+	Maneuver copy() {
+		final Maneuver copy = new Maneuver(0, 0, 0);
+		copyTo(copy);
+		return copy;
 	}
 
-
 	/**
-	 * Returns a string representation of this Maneuver. The returned string describes the
-	 * steps to be taken to complete this Maneuver.
-	 * @return	the string representation
+	 * Makes the target a copy of this Maneuver, reusing the buffer of the target. Safe to
+	 * call while another thread is adding Actions to this Maneuver: the copy then holds
+	 * the Actions up to the last one published, its location and direction may be those
+	 * of a later Action.
 	 */
-	@Override
-	public String toString() {
-		final StringBuilder builder = new StringBuilder();
-
-		final Iterator<Action> it = actions.iterator();
-
-		if (it.hasNext()) {
-			builder.append(it.next());
+	void copyTo(Maneuver target) {
+		// the number first, the buffer read after it holds at least that many
+		final int size = published;
+		final int[] actions = this.actions;
+
+		target.reset(initialX, initialY, direction);
+		target.x = x;
+		target.y = y;
+
+		if (target.actions.length < size)
+			target.actions = new int[size];
+		System.arraycopy(actions, 0, target.actions, 0, size);
+		target.size = size;
+		PUBLISHED.lazySet(target, size);
+	}
 
-			while (it.hasNext()) {
-				final Action action = it.next();
-				builder
-						.append(" \nthen ")
-						.append(action);
-			}
-		}
+	/**
+	 * Passes the kind and value of each Action to the consumer, in the order they are
+	 * applied. The kind is {@link Maneuver#ADVANCE} or {@link Maneuver#TURN}.
+	 */
+	void forEachAction(ActionConsumer consumer) {
+		// read once, a Competitor may still be replacing the buffer
+		final int[] actions = this.actions;
+		final int size = Math.min(this.size, actions.length) & ~1;
 
-		return builder.toString();
+		for (int i = 0; i < size; i += 2)
+			consumer.accept(actions[i], actions[i + 1]);
 	}
 
 	/**
-	 * Returns a shorter string representation of this Maneuver. The returned string
-	 * describes the starting point and ending point of this Maneuver.
-	 * @return	the string representation
+	 * Receives the Actions of a Maneuver, see {@link Maneuver#forEachAction(ActionConsumer)}.
 	 */
-	public String toShortString() {
-		return "(" + getInitialX() + ", " + getInitialY() + ") -> ("
-				+ getX() + ", " + getY() + ")";
+	interface ActionConsumer {
+		void accept(int kind, int value);
 	}
 
 
-
 	/**
-	 * An Action is a single step in a Maneuver. An Action can be applied to an Entity.
+	 * Apply all Actions in this Maneuver to the specified Competitor.
 	 */
-	private abstract static class Action {
-		abstract void applyTo(Competitor competitor);
+	final void applyTo(Competitor competitor) {
+		final int[] actions = this.actions;
+		final int size = Math.min(this.size, actions.length) & ~1;
+
+		for (int i = 0; i < size; i += 2) {
+			if (actions[i] == TURN)
+				competitor.turn(actions[i + 1]);
+			else
+				advance(competitor, actions[i + 1]);
+		}
 	}
 
+	/** Moves the Competitor, paying a unit of energy per unit of distance. */
+	private static void advance(Competitor competitor, int distance) {
+		// only possible if the buffer was changed after the Maneuver was handed over
+		if (distance == Integer.MIN_VALUE)
+			distance = distance+1;
 
-	/** Represents an advancement of a certain distance. */
-	private static final class Advance extends Action {
-		private final int distance, cost;
-
-		Advance(int distance) {
-			// if malicious attempt to cause overflow
-			if (distance == Integer.MIN_VALUE)
-				distance = distance+1;
+		final int cost = Math.abs(distance);
+		final int energyLeft = competitor.getLiveEnergyLevel();
+		int actualCost = cost, actualDistance = distance;
 
-			this.distance = distance;
-
-			cost = Math.abs(distance);
+		if (cost > energyLeft) {
+			actualCost = energyLeft;
+			actualDistance = energyLeft;
 		}
 
-		@Override
-		void applyTo(Competitor competitor) {
-			final int energyLeft = competitor.getEnergyLevel();
-			int actualCost = cost, actualDistance = distance;
-
-			if (cost > energyLeft) {
-				actualCost = energyLeft;
-				actualDistance = energyLeft;
-			}
+		competitor.changeEnergy(-actualCost);
+		competitor.getStats().incrementTotalDistanceBy(actualDistance);
+		competitor.move(actualDistance);
+	}
 
-			competitor.changeEnergy(-actualCost);
-			competitor.getStats().incrementTotalDistanceBy(actualDistance);
-			competitor.getActor().move(actualDistance);
-		}
 
-		@Override
-		public String toString() { return "advance " + distance + " units"; }
-	}
+	/**
+	 * Returns a string representation of this Maneuver. The returned string describes the
+	 * steps to be taken to complete this Maneuver.
+	 * @return	the string representation
+	 */
+	@Override
+	public String toString() {
+		final StringBuilder builder = new StringBuilder();
 
-	/** Represents a clockwise turn of certain degrees. */
-	private static final class Turn extends Action {
-		private final int degrees;
+		forEachAction((kind, value) -> {
+			if (builder.length() > 0)
+				builder.append(" \nthen ");
 
-		Turn(int degrees) { this.degrees = degrees; }
+			if (kind == ADVANCE)
+				builder.append("advance ").append(value).append(" units");
+			else if (value >= 0)
+				builder.append("turn clockwise ").append(value).append(" degrees");
+			else
+				builder.append("turn counter-clockwise ").append(-value).append(" degrees");
+		});
 
-		@Override
-		void applyTo(Competitor competitor) {
-			competitor.getActor().turn(degrees);
-		}
+		return builder.toString();
+	}
 
-		@Override
-		public String toString() {
-			return degrees >= 0 ?
-					"turn clockwise " + degrees + " degrees" :
-					"turn counter-clockwise " + -degrees + " degrees";
-		}
+	/**
+	 * Returns a shorter string representation of this Maneuver. The returned string
+	 * describes the starting point and ending point of this Maneuver.
+	 * @return	the string representation
+	 */
+	public String toShortString() {
+		return "(" + getInitialX() + ", " + getInitialY() + ") -> ("
+				+ getX() + ", " + getY() + ")";
 	}
 }
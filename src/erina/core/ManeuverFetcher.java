@@ -1,36 +1,89 @@
 package erina.core;
 
+import java.time.Duration;
 import java.util.Map;
-import java.util.Optional;
 import java.util.concurrent.*;
 
 /**
  * This class helps to get Maneuvers from Maneuverables. Each Maneuverable is handled by
  * a separate thread.
  *
- * @version 1.0
+ * <p>Fetching is driven by events rather than polling. A fetch is dispatched when a
+ * Maneuverable is submitted to a running ManeuverFetcher, when the ManeuverFetcher is
+ * started, and when the Maneuver of a Maneuverable is cleared. At most one fetch is in
+ * progress for each Maneuverable at any time.
+ *
+ * <p>Fetches run on platform threads or virtual threads depending on the
+ * {@link ErinaConfig.ExecutionMode}.
+ *
+ * <p>A fetch may be given a time budget, a cycle budget, or both. Budgets are checked
+ * whenever the Erina collects the Maneuver of a Maneuverable with
+ * {@link ManeuverFetcher#get(Maneuverable)}, once per cycle; a fetch over budget is
+ * cancelled and its thread interrupted. Its Maneuver is discarded, should it return one
+ * after all. A Maneuverable ignoring the interrupt keeps its thread, but is not asked
+ * for another Maneuver until it returns, so there is never more than one thread per
+ * Maneuverable. What {@link ManeuverFetcher#get(Maneuverable)} returns while a Maneuver
+ * is late is decided by the {@link ErinaConfig.LatePolicy}.
+ *
+ * <p>A Maneuver delivered after {@link ManeuverFetcher#get(Maneuverable)} found it late
+ * in a cycle is kept for the next cycle, {@link ManeuverFetcher#clear(Maneuverable)}
+ * only discards the Maneuver {@code get} handed out. Every delivered Maneuver is
+ * therefore applied exactly once, and the turnaround times and missed cycles of a
+ * Competitor add up to the cycles it was fetched in.
+ *
+ * @version 1.3
  * @author Eric
  */
 final class ManeuverFetcher {
 
 	private volatile boolean running = false;
 
-	// one extra thread for dispatching fetchers
-	private final ExecutorService executor = Executors.newSingleThreadExecutor();
-	private final ExecutorService fetchers = Executors.newCachedThreadPool();
+	private final ExecutorService fetchers;
+
+	// in nanoseconds, 0 for no limit
+	private final long timeBudget;
+	// 0 for no limit
+	private final int cycleBudget;
+	private final ErinaConfig.LatePolicy latePolicy;
+
+	// Maneuverables and the states of their fetches
+	private final Map<Maneuverable, Slot> slots = new ConcurrentHashMap<>();
+
+
+	/**
+	 * Creates a ManeuverFetcher with the execution mode, budgets and late policy of the
+	 * specified ErinaConfig.
+	 * @param config	the settings of the Erina
+	 */
+	ManeuverFetcher(ErinaConfig config) {
+		fetchers = newExecutor(config.getExecutionMode());
 
-	// Maneuverables and their next Maneuvers
-	// Optional is used because ConcurrentHashMap does not allow null
-	private final Map<Maneuverable, Optional<Maneuver>> maneuverableToManeuver =
-			new ConcurrentHashMap<>();
+		final Duration timeBudget = config.getTimeBudget();
+		this.timeBudget = timeBudget == null ? 0 : timeBudget.toNanos();
+		cycleBudget = config.getCycleBudget();
+		latePolicy = config.getLatePolicy();
+	}
 
-	/*
-	for checking if we are already fetching for a certain Maneuverable.
-	if we are, it would be in this map with a matching future, and we should not submit a
-	duplicated clear task.
+	/**
+	 * Creates an ExecutorService that starts a new thread of the specified kind for each
+	 * fetch, or reuses an idle one.
 	 */
-	private final Map<Maneuverable, Future<?>> maneuverableToFuture =
-			new ConcurrentHashMap<>();
+	private static ExecutorService newExecutor(ErinaConfig.ExecutionMode mode) {
+		if (mode == ErinaConfig.ExecutionMode.VIRTUAL) {
+			try {
+				// looked up reflectively so the Erina still runs on JVMs without them
+				return (ExecutorService) Executors.class
+						.getMethod("newVirtualThreadPerTaskExecutor")
+						.invoke(null);
+			}
+			catch (ReflectiveOperationException e) {
+				Logger.logLine("Virtual threads are not supported, using platform threads");
+			}
+		}
+
+		return Executors.newCachedThreadPool();
+	}
+
 
 	/**
 	 * Causes this ManeuverFetcher to start fetching.
@@ -38,50 +91,22 @@ final class ManeuverFetcher {
 	 */
 	void start() {
 		// if we are not already running and we are not already shutdown
-		if (!running && !executor.isShutdown()) {
+		if (!running && !fetchers.isShutdown()) {
 			running = true;	// start running
-			executor.submit(() -> {	// do the following on a different thread
-				// run until shutdown
-				while (running) {
-
-					// for each entry
-					maneuverableToManeuver.forEach((maneuverable, optional) -> {
-						// if the maneuverable has not provided its next maneuver
-						// and we have not asked it for its next maneuver
-						if (!optional.isPresent() &&
-								maneuverableToFuture.get(maneuverable) == null) {
-							// store the future so we know next time not to ask again
-							maneuverableToFuture.put(
-									maneuverable,
-									fetchers.submit(() -> {
-										// ask for the maneuver
-										final Maneuver nextManeuver = maneuverable.doManeuver();
-										// then put its next maneuver in the map
-										maneuverableToManeuver.put(
-												maneuverable,
-												Optional.of(nextManeuver)
-										);
-									})
-							);
-
-						}
-					});
-				}
-			});
+			slots.forEach(this::dispatch);
 		}
 		else
 			throw new IllegalStateException("ManeuverFetcher cannot be started twice");
 	}
 
 	/**
-	 * Causes this ManeuverFetcher to shutdown. No more Maneuvers will be fetched and all
-	 * threads will be shutdown.
+	 * Causes this ManeuverFetcher to shutdown. No more Maneuvers will be fetched, fetches
+	 * in progress are interrupted and all threads will be shutdown.
 	 * @see	ManeuverFetcher#start()
 	 */
 	void shutdown() {
 		running = false;
-		executor.shutdown();
-		fetchers.shutdown();
+		fetchers.shutdownNow();
 	}
 
 
@@ -90,7 +115,9 @@ final class ManeuverFetcher {
 	 * @param maneuverable	the Maneuverable to be fetched
 	 */
 	void submit(Maneuverable maneuverable) {
-		maneuverableToManeuver.put(maneuverable, Optional.empty());
+		final Slot slot = new Slot(maneuverable);
+		slots.put(maneuverable, slot);
+		dispatch(maneuverable, slot);
 	}
 
 	/**
@@ -99,38 +126,234 @@ final class ManeuverFetcher {
 	 * @param maneuverable	the Maneuverable to remove
 	 */
 	void remove(Maneuverable maneuverable) {
-		maneuverableToFuture.remove(maneuverable);
-		maneuverableToManeuver.remove(maneuverable);
+		final Slot slot = slots.remove(maneuverable);
+		if (slot != null) {
+			synchronized (slot) {
+				slot.removed = true;
+				slot.maneuver = null;
+				slot.handedOut = null;
+			}
+		}
 	}
 
 	/**
-	 * Marks the Maneuverable ready to be fetched for further Maneuvers.
-	 * @return the next Maneuver supplied by the specified Maneuverable, or null if the
-	 * Maneuverable is not ready or is not being fetched by this ManeuverFetcher.
+	 * Discards the Maneuver handed out by the last {@link ManeuverFetcher#get(Maneuverable)}
+	 * and marks the Maneuverable ready to be fetched for further Maneuvers. The next fetch
+	 * is dispatched immediately unless one is already in progress. A Maneuver delivered
+	 * since a {@code get} that found none is not discarded, the next {@code get} returns
+	 * it.
+	 * @return the Maneuver discarded, or null if {@code get} handed out none or the
+	 * Maneuverable is not being fetched by this ManeuverFetcher.
 	 * @see ManeuverFetcher#get(Maneuverable)
 	 */
 	Maneuver clear(Maneuverable maneuverable) {
-		maneuverableToFuture.remove(maneuverable);
-		Optional<Maneuver> optional =
-				maneuverableToManeuver.put(maneuverable, Optional.empty());
-		if (optional != null)
-			return optional.orElse(null);
-		return null;
+		final Slot slot = slots.get(maneuverable);
+		if (slot == null)
+			return null;
+
+		final Maneuver maneuver;
+		synchronized (slot) {
+			maneuver = slot.handedOut;
+			slot.handedOut = null;
+			if (maneuver != null)
+				slot.maneuver = null;
+		}
+
+		dispatch(maneuverable, slot);
+		return maneuver;
 	}
 
 	/**
 	 * Fetches the next Maneuver of the specified Maneuverable. If the Maneuverable is not
-	 * ready for the next Maneuver at the time of invocation, null is returned. However
-	 * null may also mean that the specified Maneuverable is not being fetched by this
-	 * ManeuverFetcher.
-	 * @return	the next Maneuver supplied by the specified Maneuverable, or null if the
-	 * Maneuverable is not ready or is not being fetched by this ManeuverFetcher.
+	 * ready for the next Maneuver at the time of invocation, its fetch is cancelled if
+	 * over budget, and what is returned depends on the LatePolicy: null, the previous
+	 * Maneuver, or the Maneuver left by the cancelled fetch. Null is also returned if the
+	 * specified Maneuverable is not being fetched by this ManeuverFetcher.
+	 * @return	the next Maneuver supplied by the specified Maneuverable, or what the
+	 * LatePolicy applies instead, or null.
 	 * @see ManeuverFetcher#clear(Maneuverable)
 	 */
 	Maneuver get(Maneuverable maneuverable) {
-		Optional<Maneuver> optional = maneuverableToManeuver.get(maneuverable);
-		if (optional != null)
-			return optional.orElse(null);
-		return null;
+		final Slot slot = slots.get(maneuverable);
+		if (slot == null)
+			return null;
+
+		synchronized (slot) {
+			if (slot.maneuver != null) {
+				if (latePolicy == ErinaConfig.LatePolicy.REPEAT_LAST) {
+					// a copy, the Maneuverable may reuse its Maneuver for the next one
+					if (slot.last == null)
+						slot.last = new Maneuver(0, 0, 0);
+					slot.maneuver.copyTo(slot.last);
+				}
+				slot.handedOut = slot.maneuver;
+				return slot.maneuver;
+			}
+
+			// late
+			Maneuver instead = null;
+			if (slot.stats != null)
+				slot.stats.incrementMissedCycles();
+
+			if (slot.started && !slot.cancelled) {
+				slot.cyclesWaited++;
+
+				if (isOverBudget(slot)) {
+					cancel(slot);
+					Logger.logLine("%s ran over its budget, cancelled", maneuverable);
+					if (slot.stats != null)
+						slot.stats.incrementCancelledCalls();
+
+					if (latePolicy == ErinaConfig.LatePolicy.PARTIAL && slot.reusable != null) {
+						// the thread may still be adding Actions, only the published ones
+						// are copied
+						instead = new Maneuver(0, 0, 0);
+						slot.reusable.copyTo(instead);
+					}
+				}
+			}
+
+			if (latePolicy == ErinaConfig.LatePolicy.REPEAT_LAST)
+				instead = slot.last;
+
+			return instead;
+		}
+	}
+
+	private boolean isOverBudget(Slot slot) {
+		return (cycleBudget > 0 && slot.cyclesWaited >= cycleBudget)
+				|| (timeBudget > 0 && System.nanoTime() - slot.startTime > timeBudget);
+	}
+
+	/**
+	 * Cancels the fetch in progress, interrupting its thread. Must hold the lock of the
+	 * Slot.
+	 */
+	private static void cancel(Slot slot) {
+		slot.cancelled = true;
+		if (slot.task != null)
+			slot.task.cancel(true);
+	}
+
+
+	/**
+	 * Asks the Maneuverable for its next Maneuver on a fetcher thread, unless this
+	 * ManeuverFetcher is not running, a fetch is already in progress, or the previous
+	 * Maneuver has not been cleared.
+	 */
+	private void dispatch(Maneuverable maneuverable, Slot slot) {
+		synchronized (slot) {
+			if (!running || slot.removed || slot.fetching || slot.maneuver != null)
+				return;
+			slot.fetching = true;
+			slot.started = false;
+			slot.cancelled = false;
+			slot.cyclesWaited = 0;
+			slot.dispatchTime = System.nanoTime();
+
+			// whatever is left from the previous fetch must not be taken as partial
+			if (latePolicy == ErinaConfig.LatePolicy.PARTIAL && slot.reusable != null)
+				slot.reusable.reset(0, 0, 0);
+		}
+
+		final Future<?> task;
+		try {
+			// exceptions thrown by the Maneuverable are left in the Future
+			task = fetchers.submit(() -> fetch(maneuverable, slot));
+		}
+		catch (RejectedExecutionException e) {
+			// shut down in the meantime
+			synchronized (slot) {
+				slot.fetching = false;
+			}
+			return;
+		}
+
+		synchronized (slot) {
+			// only the thread running the Erina dispatches, so this is still the same
+			// fetch unless it has already finished
+			if (slot.fetching)
+				slot.task = task;
+		}
+	}
+
+	/**
+	 * Asks the Maneuverable for its next Maneuver and stores it. Runs on a fetcher
+	 * thread.
+	 */
+	private void fetch(Maneuverable maneuverable, Slot slot) {
+		final long startTime = System.nanoTime();
+		final long dispatchTime;
+		synchronized (slot) {
+			slot.started = true;
+			slot.startTime = startTime;
+			dispatchTime = slot.dispatchTime;
+		}
+
+		Maneuver nextManeuver = null;
+		boolean delivered = false;
+		try {
+			nextManeuver = maneuverable.doManeuver();
+		}
+		finally {
+			final long endTime = System.nanoTime();
+
+			synchronized (slot) {
+				slot.fetching = false;
+				slot.task = null;
+				if (!slot.removed && !slot.cancelled) {
+					slot.maneuver = nextManeuver;
+					delivered = nextManeuver != null;
+				}
+			}
+
+			if (slot.stats != null) {
+				slot.stats.getComputeTimes().record(endTime - startTime);
+				if (delivered)
+					slot.stats.getTurnaroundTimes().record(endTime - dispatchTime);
+			}
+		}
+	}
+
+
+	/**
+	 * The fetching state of a single Maneuverable. All fields are guarded by the Slot
+	 * itself.
+	 */
+	private static final class Slot {
+		// the next Maneuver, null if not ready
+		private Maneuver maneuver;
+		// the Maneuver returned by the last get(), discarded by the next clear()
+		private Maneuver handedOut;
+		// true from dispatch until doManeuver() returns
+		private boolean fetching;
+		// true once removed from the ManeuverFetcher
+		private boolean removed;
+
+		// the fetch in progress, null if none
+		private Future<?> task;
+		// when the fetch was dispatched
+		private long dispatchTime;
+		// true once doManeuver() is called, and when
+		private boolean started;
+		private long startTime;
+		// the number of times the Maneuver was not ready when collected
+		private int cyclesWaited;
+		// true if the fetch in progress ran over budget, its Maneuver is discarded
+		private boolean cancelled;
+
+		// the Maneuver the Maneuverable builds on and where its latencies go, both null if
+		// not a Competitor
+		private final Maneuver reusable;
+		private final CompetitorStats stats;
+		// a copy of the previous Maneuver, only kept for LatePolicy.REPEAT_LAST
+		private Maneuver last;
+
+		private Slot(Maneuverable maneuverable) {
+			final Competitor competitor = maneuverable instanceof Competitor ?
+					(Competitor) maneuverable : null;
+			reusable = competitor == null ? null : competitor.getReusableManeuver();
+			stats = competitor == null ? null : competitor.getStats();
+		}
 	}
 }
@@ -19,6 +19,10 @@ final class ManeuverHandler {
 
 		final List<Competitor> competitors = new LinkedList<>(maneuvers.keySet());
 
+		// bring collision states up to date, afterwards only the Competitors touching a
+		// moving Competitor before or after its move can change
+		maneuvers.keySet().forEach(Competitor::updateContacts);
+
 		// for each maneuver
 		// the ugly mess because we are removing in loop
 		outer: while (!competitors.isEmpty()) {
@@ -30,7 +34,11 @@ final class ManeuverHandler {
 			maneuver.applyTo(competitor);
 
 			// update collision states
-			maneuvers.keySet().forEach(Competitor::updateContacts);
+			competitor.updateContacts();
+			for (Competitor affected : competitor.getAffectedContacts()) {
+				if (maneuvers.containsKey(affected))
+					affected.updateContacts();
+			}
 
 			// then handle collision with other competitors
 
@@ -91,7 +99,7 @@ final class ManeuverHandler {
 
 			// handle nuggets
 			final List<Nugget> nuggets =
-					competitor.getIntersectingObjects(Nugget.class);
+					competitor.getWorld().getIntersectingEntities(competitor, Nugget.class);
 			if (!nuggets.isEmpty()) {	// if we found nuggets
 				// consume them
 				nuggets.forEach(competitor::consume);
@@ -112,10 +120,10 @@ final class ManeuverHandler {
 		// TODO use a better source for hitter coordinate?
 		// TODO check edge case, what if hitter coordinate equals hittee coordinate?
 
-		final double hitteeHeading = hittee.getDirection();
+		final double hitteeHeading = hittee.getLiveDirection();
 		// so unicode characters are valid identifiers...
-		final double Δx = hitter.getX() - hittee.getX();
-		final double Δy = hitter.getY() - hittee.getY();
+		final double Δx = hitter.getLiveX() - hittee.getLiveX();
+		final double Δy = hitter.getLiveY() - hittee.getLiveY();
 		final double θ = Math.abs(Math.atan2(Δy, Δx));
 
 		double result = Math.abs(θ - Math.toRadians(hitteeHeading));
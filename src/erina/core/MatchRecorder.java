@@ -0,0 +1,155 @@
+package erina.core;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Records a match so that it can be replayed by {@link MatchReplay} without running the
+ * Competitors. Given the seed, the Erina is deterministic apart from the Maneuvers the
+ * Competitors come up with, so the seed and the Actions applied each cycle are all that
+ * is recorded, along with the settings making up the rules of the match: the size of the
+ * Erina, its limits and what spawns how often.
+ *
+ * <p>The file starts with a header: the magic number {@value #MAGIC} and the version as
+ * ints, the seed as a long, the width, height, maximum number of cycles and energy per
+ * cycle as ints, the spawn settings of Nuggets and then of Sauces, then the number of
+ * Competitors followed by the id and name of each Competitor. The spawn settings of each
+ * are the number of values in the {@link SpawnTable}, each value and its weight as a
+ * double, then the rate as a double and the maximum. Then, for each cycle:
+ * <pre>
+ *   varint  number of Maneuvers applied
+ *   for each Maneuver, in the order applied:
+ *     varint  id of the Competitor, zigzag encoded difference to the previous id
+ *     varint  number of Actions
+ *     for each Action:
+ *       varint  zigzag encoded value, shifted left by one, or'ed with the kind
+ * </pre>
+ * Varints are unsigned LEB128, 7 bits per byte with the lowest bits first. A cycle in
+ * which no Competitor maneuvered takes a single byte.
+ *
+ * @version 1.1
+ * @author Eric
+ */
+final class MatchRecorder implements Closeable {
+
+	/** The first 4 bytes of every recording. */
+	static final int MAGIC = 0x45524E52;	// "ERNR"
+
+	/**
+	 * The version of the format described above, also bumped when the rules of the Erina
+	 * change so that a recorded match would play out differently.
+	 */
+	static final int VERSION = 5;
+
+	private final DataOutputStream out;
+
+	// the encoded Actions of the Maneuver being recorded
+	private long[] actions = new long[16];
+	private int actionCount;
+
+
+	/**
+	 * Creates a recording at the specified path, replacing any existing file, and writes
+	 * the header.
+	 * @param path	the file to write to
+	 * @param seed	the seed of the match
+	 * @param config	the settings of the match, of which the rules are recorded
+	 * @param competitors	the Competitors taking part, in the order they were added
+	 * @throws IOException	if the file cannot be written
+	 */
+	MatchRecorder(Path path, long seed, ErinaConfig config,
+			List<? extends Competitor> competitors) throws IOException {
+		out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)));
+
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		out.writeLong(seed);
+		out.writeInt(config.getWidth());
+		out.writeInt(config.getHeight());
+		out.writeInt(config.getMaxCycles());
+		out.writeInt(config.getEnergyPerCycle());
+		writeSpawning(config.getNuggetValues(), config.getNuggetRate(), config.getMaxNuggets());
+		writeSpawning(config.getSauceValues(), config.getSauceRate(), config.getMaxSauces());
+
+		writeVarint(competitors.size());
+		for (Competitor competitor : competitors) {
+			final byte[] name = String.valueOf(competitor).getBytes(StandardCharsets.UTF_8);
+			writeVarint(competitor.id);
+			writeVarint(name.length);
+			out.write(name);
+		}
+	}
+
+
+	private void writeSpawning(SpawnTable values, double rate, int max) throws IOException {
+		writeVarint(values.size());
+		for (int i = 0; i < values.size(); i++) {
+			writeVarint(values.getValue(i));
+			out.writeDouble(values.getWeight(i));
+		}
+		out.writeDouble(rate);
+		writeVarint(max);
+	}
+
+
+	/**
+	 * Records the Maneuvers applied in a cycle. The Maneuvers must not change until they
+	 * have been applied, see {@link Maneuver#copy()}.
+	 * @param maneuvers	the Maneuvers by Competitor, in the order they are applied
+	 * @throws IOException	if the recording could not be written
+	 */
+	void record(Map<? extends Competitor, ? extends Maneuver> maneuvers) throws IOException {
+		writeVarint(maneuvers.size());
+
+		int previousId = 0;
+		for (Map.Entry<? extends Competitor, ? extends Maneuver> entry : maneuvers.entrySet()) {
+			final int id = entry.getKey().id;
+			writeVarint(zigzag(id - previousId));
+			previousId = id;
+
+			actionCount = 0;
+			entry.getValue().forEachAction(this::addAction);
+			writeVarint(actionCount);
+			for (int i = 0; i < actionCount; i++)
+				writeVarint(actions[i]);
+		}
+	}
+
+	private void addAction(int kind, int value) {
+		if (actionCount == actions.length)
+			actions = Arrays.copyOf(actions, actionCount * 2);
+		actions[actionCount++] = zigzag(value) << 1 | kind;
+	}
+
+	/** Writes all buffered cycles and closes the file. */
+	@Override
+	public void close() throws IOException { out.close(); }
+
+
+	private void writeVarint(long value) throws IOException {
+		while ((value & ~0x7FL) != 0) {
+			out.write((int) (value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.write((int) value);
+	}
+
+	/** Maps signed ints to unsigned longs so that small magnitudes stay small. */
+	static long zigzag(int value) {
+		return ((value << 1) ^ (value >> 31)) & 0xFFFFFFFFL;
+	}
+
+	/** Reverses {@link MatchRecorder#zigzag(int)}. */
+	static int unzigzag(long value) {
+		final int bits = (int) value;
+		return (bits >>> 1) ^ -(bits & 1);
+	}
+}
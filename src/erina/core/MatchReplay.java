@@ -0,0 +1,200 @@
+package erina.core;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads a recording written by {@link MatchRecorder} and hands out the Maneuvers of each
+ * cycle in turn. An Erina replaying a match takes its Maneuvers from here instead of from
+ * the Competitors, whose code is never run.
+ *
+ * <p>The whole recording is read into memory when opened.
+ *
+ * @version 1.1
+ * @author Eric
+ */
+final class MatchReplay {
+
+	private final Path path;
+	private final ByteBuffer buffer;
+
+	private final long seed;
+	// the rules recorded, applied by withRules
+	private final ErinaConfig rules;
+	private final int[] ids;
+	private final String[] names;
+
+	// reused from cycle to cycle, by Competitor id
+	private Maneuver[] maneuversById = new Maneuver[0];
+
+
+	private MatchReplay(Path path, ByteBuffer buffer) throws IOException {
+		this.path = path;
+		this.buffer = buffer;
+
+		try {
+			if (buffer.getInt() != MatchRecorder.MAGIC
+					|| buffer.getInt() != MatchRecorder.VERSION)
+				throw new IOException("Not a recording of version " + MatchRecorder.VERSION
+						+ ": " + path);
+
+			seed = buffer.getLong();
+			rules = new ErinaConfig.Builder()
+					.size(buffer.getInt(), buffer.getInt())
+					.maxCycles(buffer.getInt())
+					.energyPerCycle(buffer.getInt())
+					.nuggetValues(readSpawnTable())
+					.nuggetRate(buffer.getDouble())
+					.maxNuggets((int) readVarint())
+					.sauceValues(readSpawnTable())
+					.sauceRate(buffer.getDouble())
+					.maxSauces((int) readVarint())
+					.build();
+
+			final int count = (int) readVarint();
+			ids = new int[count];
+			names = new String[count];
+			for (int i = 0; i < count; i++) {
+				ids[i] = (int) readVarint();
+				final byte[] name = new byte[(int) readVarint()];
+				buffer.get(name);
+				names[i] = new String(name, StandardCharsets.UTF_8);
+			}
+		}
+		catch (BufferUnderflowException e) {
+			throw new IOException("Truncated recording: " + path);
+		}
+		catch (IllegalArgumentException | IllegalStateException e) {
+			throw new IOException("Corrupt recording " + path + ": " + e.getMessage());
+		}
+	}
+
+	private SpawnTable readSpawnTable() {
+		final SpawnTable.Builder builder = new SpawnTable.Builder();
+		final int count = (int) readVarint();
+		for (int i = 0; i < count; i++)
+			builder.add((int) readVarint(), buffer.getDouble());
+		return builder.build();
+	}
+
+	/**
+	 * Reads the recording at the specified path.
+	 * @param path	the recording
+	 * @return	the MatchReplay, positioned at the first cycle
+	 * @throws IOException	if the file cannot be read or is not a recording of this version
+	 */
+	static MatchReplay open(Path path) throws IOException {
+		return new MatchReplay(path, ByteBuffer.wrap(Files.readAllBytes(path)));
+	}
+
+
+	/** Returns the seed of the recorded match. */
+	long getSeed() { return seed; }
+
+	/** Returns the width of the Erina the match was recorded in. */
+	int getWidth() { return rules.getWidth(); }
+
+	/** Returns the height of the Erina the match was recorded in. */
+	int getHeight() { return rules.getHeight(); }
+
+	/**
+	 * Returns the specified settings with the rules of the recorded match in place of its
+	 * own: the size of the Erina, its limits and the spawn settings.
+	 */
+	ErinaConfig withRules(ErinaConfig config) {
+		return config.toBuilder()
+				.size(rules.getWidth(), rules.getHeight())
+				.maxCycles(rules.getMaxCycles())
+				.energyPerCycle(rules.getEnergyPerCycle())
+				.nuggetValues(rules.getNuggetValues())
+				.nuggetRate(rules.getNuggetRate())
+				.maxNuggets(rules.getMaxNuggets())
+				.sauceValues(rules.getSauceValues())
+				.sauceRate(rules.getSauceRate())
+				.maxSauces(rules.getMaxSauces())
+				.build();
+	}
+
+	/**
+	 * Checks that the specified Competitors are the ones recorded, with the same ids and
+	 * names in the same order.
+	 * @throws IllegalStateException	if the Competitors differ from the recorded ones
+	 */
+	void checkCompetitors(List<? extends Competitor> competitors) {
+		boolean same = competitors.size() == ids.length;
+		for (int i = 0; same && i < ids.length; i++) {
+			final Competitor competitor = competitors.get(i);
+			same = competitor.id == ids[i] && names[i].equals(String.valueOf(competitor));
+		}
+
+		if (!same)
+			throw new IllegalStateException(
+					"Competitors differ from those recorded in " + path);
+	}
+
+	/** Checks if there are cycles left to replay. */
+	boolean hasNext() { return buffer.hasRemaining(); }
+
+	/**
+	 * Reads the Maneuvers of the next cycle into the specified Map, in the order they
+	 * were applied.
+	 * @param store	the EntityStore to look up the Competitors by id in
+	 * @param maneuvers	the Map to put the Maneuvers in
+	 * @throws IllegalStateException	if the recording is corrupt or does not belong to
+	 * this Erina
+	 */
+	void next(EntityStore store, Map<Competitor, Maneuver> maneuvers) {
+		try {
+			final int count = (int) readVarint();
+
+			int id = 0;
+			for (int i = 0; i < count; i++) {
+				id += MatchRecorder.unzigzag(readVarint());
+				if (id < 0 || id >= store.size() || store.getType(id) != EntityStore.COMPETITOR)
+					throw new IllegalStateException("No Competitor with id " + id
+							+ " recorded in " + path);
+
+				if (id >= maneuversById.length)
+					maneuversById = Arrays.copyOf(maneuversById, store.size());
+				if (maneuversById[id] == null)
+					maneuversById[id] = new Maneuver(0, 0, 0);
+				final Maneuver maneuver = maneuversById[id].reset(0, 0, 0);
+				final int actions = (int) readVarint();
+				for (int j = 0; j < actions; j++) {
+					final long action = readVarint();
+					final int value = MatchRecorder.unzigzag(action >>> 1);
+
+					if ((action & 1) == Maneuver.TURN)
+						maneuver.turn(value);
+					else
+						maneuver.move(value);
+				}
+
+				maneuvers.put((Competitor) store.getEntity(id), maneuver);
+			}
+		}
+		catch (BufferUnderflowException e) {
+			throw new IllegalStateException("Truncated recording: " + path);
+		}
+	}
+
+
+	private long readVarint() {
+		long value = 0;
+		for (int shift = 0; ; shift += 7) {
+			final byte b = buffer.get();
+			value |= (long) (b & 0x7F) << shift;
+			if (b >= 0)
+				return value;
+			if (shift > 56)
+				throw new IllegalStateException("Malformed varint in " + path);
+		}
+	}
+}
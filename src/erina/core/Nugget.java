@@ -4,7 +4,7 @@ package erina.core;
  * A Nugget is an Entity with some energy. Competitors may acquire the energy
  * in a Nugget by touching it.
  *
- * @version 1.0
+ * @version 1.1
  * @author Eric
  */
 public final class Nugget extends Entity<Nugget, NuggetActor> {
@@ -14,15 +14,27 @@ public final class Nugget extends Entity<Nugget, NuggetActor> {
 		super(world);
 		nuggetValue = value;
 
-		// set appropriate image
-		if (nuggetValue == 500)
+		// set appropriate image, other values look like the tier below them
+		if (nuggetValue <= 0)
+			throw new IllegalArgumentException("Illegal nugget value: " + nuggetValue);
+		else if (nuggetValue < 1000)
 			setImage("images/nugget_500.png");
-		else if (nuggetValue == 1000)
+		else if (nuggetValue < 1500)
 			setImage("images/nugget_1000.png");
-		else if (nuggetValue == 1500)
-			setImage("images/nugget_1500.png");
 		else
-			throw new IllegalArgumentException("Illegal nugget value: " + nuggetValue);
+			setImage("images/nugget_1500.png");
+	}
+
+	/**
+	 * Creates a Nugget of the specified value together with its NuggetActor.
+	 * @param world	the Erina the Nugget is in
+	 * @param value	the energy of the Nugget
+	 * @return	the Nugget, not yet added to the Erina
+	 */
+	static Nugget create(Erina world, int value) {
+		final Nugget nugget = new Nugget(world, value);
+		nugget.init(new NuggetActor(nugget));
+		return nugget;
 	}
 
 	/**
@@ -9,7 +9,7 @@ package erina.core;
  * of expiry. The goal of this behaviour is to encourage cooperation
  * among Competitors.
  *
- * @version 1.0
+ * @version 1.1
  * @author Eric
  */
 public final class Sauce extends Entity<Sauce, SauceActor> {
@@ -17,7 +17,9 @@ public final class Sauce extends Entity<Sauce, SauceActor> {
 	private static final int ITERATIONS_TO_TIMEOUT = 200;
 
 	private final int sauceValue;
-	private volatile int iterationsLeft = ITERATIONS_TO_TIMEOUT;
+	// the cycle this Sauce expires at, -1 unless counting down in play
+	private volatile long expiryCycle = -1;
+	// never cleared, see resetTimeout()
 	private volatile boolean countingDown = false;
 
 	Sauce(Erina world, int sauceValue) {
@@ -33,6 +35,18 @@ public final class Sauce extends Entity<Sauce, SauceActor> {
 			setImage("images/LaoGanMa2.png");
 	}
 
+	/**
+	 * Creates a Sauce of the specified value together with its SauceActor.
+	 * @param world	the Erina the Sauce is in
+	 * @param value	the energy of the Sauce
+	 * @return	the Sauce, not yet added to the Erina
+	 */
+	static Sauce create(Erina world, int value) {
+		final Sauce sauce = new Sauce(world, value);
+		sauce.init(new SauceActor(sauce));
+		return sauce;
+	}
+
 	/**
 	 * Returns the amount of energy stored in this Sauce.
 	 */
@@ -41,29 +55,50 @@ public final class Sauce extends Entity<Sauce, SauceActor> {
 	/**
 	 * Returns the number of iterations left until this Sauce expires.
 	 */
-	public int getIterationsLeft() { return iterationsLeft; }
+	public int getIterationsLeft() {
+		final long expiryCycle = this.expiryCycle;
+		if (expiryCycle < 0)
+			return ITERATIONS_TO_TIMEOUT;
+		// as of the end of the last cycle, like everything else Competitors read
+		return (int) Math.max(0, expiryCycle - getWorld().getSnapshot().getCycle());
+	}
 
 	/**
 	 * Checks if this Sauce has timed out.
 	 * @return true if this sauce has timed out, false otherwise
 	 */
-	public boolean hasTimedOut() { return iterationsLeft <= 0; }
+	public boolean hasTimedOut() { return getIterationsLeft() <= 0; }
+
+	/**
+	 * Checks if this Sauce is counting down to its expiry.
+	 */
+	boolean isCountingDown() { return expiryCycle >= 0; }
 
-	void startCountdown() {
+	/**
+	 * Checks if this Sauce has ever started counting down, see
+	 * {@link Sauce#resetTimeout()}.
+	 */
+	boolean hasCountedDown() { return countingDown; }
+
+	/**
+	 * Starts the countdown of this Sauce in the specified cycle, counting that cycle as
+	 * the first iteration.
+	 */
+	void startCountdown(long cycle) {
 		countingDown = true;
+		expiryCycle = cycle + ITERATIONS_TO_TIMEOUT - 1;
 	}
 
 	/**
-	 * Updates the timeout of this Sauce. Decreases the amount of iterations left by 1 if
-	 * {@link Sauce#startCountdown()} has been called on this Sauce and this Sauce has not
-	 * expired.
+	 * Returns the cycle this Sauce expires at, -1 if it is not counting down.
 	 */
-	synchronized void updateTimeout() {
-		if (countingDown && iterationsLeft > 0)
-			iterationsLeft--;
-	}
+	long getExpiryCycle() { return expiryCycle; }
 
-	void resetTimeout() { iterationsLeft = ITERATIONS_TO_TIMEOUT; }
+	/**
+	 * Resets the timeout after this Sauce expired. A Sauce that has counted down once
+	 * starts again as soon as it is back in play, contact or not.
+	 */
+	void resetTimeout() { expiryCycle = -1; }
 
 
 	/**
@@ -0,0 +1,309 @@
+package erina.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A uniform grid over the Erina used to find Entities near each other without scanning
+ * every Entity. Each Entity in the grid is kept, by id, in the cell containing its
+ * location.
+ *
+ * <p>The grid narrows down the candidates, the exact tests are done on the state in the
+ * {@link EntityStore}. Candidates are found by extending the search area by the largest
+ * bounding radius of any Entity, so that no intersecting Entity is ever missed.
+ *
+ * <p>The grid is only used by the thread running the Erina. Competitors query the copy
+ * of it held by the {@link WorldSnapshot} of each cycle instead. The grid remembers
+ * which cells changed in the current and the previous generation, a generation being
+ * the time between two snapshots, so that a snapshot only copies the cells that changed
+ * since it was last taken.
+ *
+ * @version 1.3
+ * @author Eric
+ */
+final class SpatialGrid {
+
+	/** Cell size used by the Erina, roughly twice the size of a typical Entity image. */
+	static final int DEFAULT_CELL_SIZE = 64;
+
+	private final EntityStore store;
+
+	private final int cellSize, columns, rows;
+
+	// ids of the Entities in each cell, lazily created, most cells are empty most of the time
+	private final int[][] cells;
+	private final int[] cellSizes;
+
+	// cell holding each id, -1 if not in the grid
+	private int[] cellOfId = new int[0];
+
+	// largest bounding radius of any Entity that has been in this grid
+	private int maxRadius = 0;
+
+	// the generation each cell last changed in, and the cells changed in the current and
+	// the previous generation
+	private int generation = 0;
+	private final int[] changedIn;
+	private int[] changed = new int[64], previouslyChanged = new int[64];
+	private int changedCount = 0, previouslyChangedCount = 0;
+
+
+	/**
+	 * Creates an empty SpatialGrid covering the specified area.
+	 * @param store	the EntityStore holding the state of the Entities
+	 * @param width	the width of the area
+	 * @param height	the height of the area
+	 * @param cellSize	the width and height of each cell
+	 */
+	SpatialGrid(EntityStore store, int width, int height, int cellSize) {
+		if (width <= 0 || height <= 0 || cellSize <= 0)
+			throw new IllegalArgumentException("Dimensions must be positive");
+
+		this.store = store;
+		this.cellSize = cellSize;
+		columns = (width + cellSize - 1) / cellSize;
+		rows = (height + cellSize - 1) / cellSize;
+
+		cells = new int[columns * rows][];
+		cellSizes = new int[columns * rows];
+		changedIn = new int[columns * rows];
+		Arrays.fill(changedIn, -1);
+	}
+
+
+	/**
+	 * Adds the Entity to the cell at its current location. The Entity must be in the
+	 * Erina.
+	 */
+	void add(Entity<?, ?> entity) {
+		final int id = entity.id;
+
+		if (id >= cellOfId.length) {
+			final int oldLength = cellOfId.length;
+			cellOfId = Arrays.copyOf(cellOfId, Math.max(store.size(), id + 1));
+			Arrays.fill(cellOfId, oldLength, cellOfId.length, -1);
+		}
+
+		if (cellOfId[id] >= 0)
+			return;	// already added
+
+		insert(id, cellOf(store.getX(id), store.getY(id)));
+		maxRadius = Math.max(maxRadius, store.getRadius(id));
+	}
+
+	/**
+	 * Removes the Entity from this grid. Does nothing if the Entity is not in this grid.
+	 */
+	void remove(Entity<?, ?> entity) {
+		final int id = entity.id;
+
+		if (id >= cellOfId.length || cellOfId[id] < 0)
+			return;
+
+		erase(id, cellOfId[id]);
+	}
+
+	/**
+	 * Moves the Entity to the cell at its current location. Does nothing if the Entity is
+	 * not in this grid.
+	 */
+	void update(Entity<?, ?> entity) {
+		final int id = entity.id;
+
+		if (id >= cellOfId.length || cellOfId[id] < 0)
+			return;
+
+		final int cell = cellOf(store.getX(id), store.getY(id));
+		if (cell != cellOfId[id]) {
+			erase(id, cellOfId[id]);
+			insert(id, cell);
+		}
+		maxRadius = Math.max(maxRadius, store.getRadius(id));
+	}
+
+
+	/**
+	 * Returns all Entities of the specified type intersecting the specified Entity,
+	 * excluding the Entity itself.
+	 * @param entity	the Entity to find intersections with
+	 * @param cls	the type of Entities to return
+	 * @param <T>	the type of Entities to return
+	 * @return	a new List of the intersecting Entities
+	 * @see	greenfoot.Actor#getIntersectingObjects(Class)
+	 */
+	<T> List<T> getIntersecting(Entity<?, ?> entity, Class<T> cls) {
+		Objects.requireNonNull(cls);
+
+		final int id = entity.id;
+		final int x = store.getX(id), y = store.getY(id);
+		final int reach = store.getRadius(id) + maxRadius;
+
+		final List<T> result = new ArrayList<>();
+
+		final int minColumn = columnOf(x - reach), maxColumn = columnOf(x + reach);
+		final int minRow = rowOf(y - reach), maxRow = rowOf(y + reach);
+
+		for (int row = minRow; row <= maxRow; row++) {
+			for (int column = minColumn; column <= maxColumn; column++) {
+				final int cell = row * columns + column;
+				final int[] ids = cells[cell];
+
+				for (int i = 0; i < cellSizes[cell]; i++) {
+					final int other = ids[i];
+					// test on the store first, the Entity is only looked at if it passes
+					if (other != id && store.intersects(id, other)) {
+						final Entity<?, ?> candidate = store.getEntity(other);
+						if (cls.isInstance(candidate))
+							result.add(cls.cast(candidate));
+					}
+				}
+			}
+		}
+
+		return result;
+	}
+
+
+	/**
+	 * Checks if a circle at the specified location keeps at least the specified gap to
+	 * the bounding circle of every Entity in this grid.
+	 * @param x	the x coordinate of the center of the circle
+	 * @param y	the y coordinate of the center of the circle
+	 * @param radius	the radius of the circle
+	 * @param gap	the least distance to keep between the circle and any Entity
+	 * @return	true if no Entity is within the gap, false otherwise
+	 */
+	boolean isClear(int x, int y, int radius, int gap) {
+		final int reach = radius + gap + maxRadius;
+
+		final int minColumn = columnOf(x - reach), maxColumn = columnOf(x + reach);
+		final int minRow = rowOf(y - reach), maxRow = rowOf(y + reach);
+
+		for (int row = minRow; row <= maxRow; row++) {
+			for (int column = minColumn; column <= maxColumn; column++) {
+				final int cell = row * columns + column;
+				final int[] ids = cells[cell];
+
+				for (int i = 0; i < cellSizes[cell]; i++) {
+					final int other = ids[i];
+					final long dx = store.getX(other) - x, dy = store.getY(other) - y;
+					final long least = radius + gap + store.getRadius(other);
+					if (dx * dx + dy * dy < least * least)
+						return false;
+				}
+			}
+		}
+
+		return true;
+	}
+
+
+	int getCellSize() { return cellSize; }
+
+	int getColumns() { return columns; }
+
+	int getRows() { return rows; }
+
+	/** Returns the largest bounding radius of any Entity that has been in this grid. */
+	int getMaxRadius() { return maxRadius; }
+
+	/** Returns the current generation, see {@link SpatialGrid#nextGeneration()}. */
+	int getGeneration() { return generation; }
+
+	/**
+	 * Starts a new generation. Called after each snapshot of this grid is taken.
+	 */
+	void nextGeneration() {
+		final int[] swap = previouslyChanged;
+		previouslyChanged = changed;
+		previouslyChangedCount = changedCount;
+		changed = swap;
+		changedCount = 0;
+		generation++;
+	}
+
+	/**
+	 * Brings a copy of this grid up to date, copying only the cells that changed since
+	 * the copy was last updated if that was in one of the last two generations, or every
+	 * cell otherwise.
+	 * @param since	the generation the copy was last updated in, -1 if never
+	 * @param to	the ids in each cell of the copy, arrays are replaced when too short
+	 * @param toSizes	the number of ids in each cell of the copy
+	 */
+	void copyCells(int since, int[][] to, int[] toSizes) {
+		if (since == generation)
+			return;
+
+		if (since >= 0 && since >= generation - 2) {
+			if (since < generation - 1) {
+				for (int i = 0; i < previouslyChangedCount; i++)
+					copyCell(previouslyChanged[i], to, toSizes);
+			}
+			for (int i = 0; i < changedCount; i++)
+				copyCell(changed[i], to, toSizes);
+		}
+		else {
+			for (int cell = 0; cell < cells.length; cell++)
+				copyCell(cell, to, toSizes);
+		}
+	}
+
+	private void copyCell(int cell, int[][] to, int[] toSizes) {
+		final int size = cellSizes[cell];
+		if (size > 0) {
+			if (to[cell] == null || to[cell].length < size)
+				to[cell] = new int[cells[cell].length];
+			System.arraycopy(cells[cell], 0, to[cell], 0, size);
+		}
+		toSizes[cell] = size;
+	}
+
+
+	private void insert(int id, int cell) {
+		int[] ids = cells[cell];
+		if (ids == null)
+			ids = cells[cell] = new int[4];
+		else if (cellSizes[cell] == ids.length)
+			ids = cells[cell] = Arrays.copyOf(ids, ids.length * 2);
+
+		ids[cellSizes[cell]++] = id;
+		cellOfId[id] = cell;
+		markChanged(cell);
+	}
+
+	private void erase(int id, int cell) {
+		final int[] ids = cells[cell];
+		final int last = --cellSizes[cell];
+
+		for (int i = 0; i <= last; i++) {
+			if (ids[i] == id) {
+				ids[i] = ids[last];	// order within a cell does not matter
+				break;
+			}
+		}
+		cellOfId[id] = -1;
+		markChanged(cell);
+	}
+
+	private void markChanged(int cell) {
+		if (changedIn[cell] == generation)
+			return;
+
+		changedIn[cell] = generation;
+		if (changedCount == changed.length)
+			changed = Arrays.copyOf(changed, changedCount * 2);
+		changed[changedCount++] = cell;
+	}
+
+	private int cellOf(int x, int y) { return rowOf(y) * columns + columnOf(x); }
+
+	private int columnOf(int x) {
+		return Math.max(0, Math.min(columns - 1, Math.floorDiv(x, cellSize)));
+	}
+
+	private int rowOf(int y) {
+		return Math.max(0, Math.min(rows - 1, Math.floorDiv(y, cellSize)));
+	}
+}
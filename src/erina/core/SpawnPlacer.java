@@ -0,0 +1,76 @@
+package erina.core;
+
+import erina.Coordinate;
+
+import java.util.Random;
+
+/**
+ * Finds locations for the Nuggets and Sauces spawned in an Erina, so that they do not land
+ * on top of Competitors or each other.
+ *
+ * <p>Locations are picked by Poisson-disk sampling in the manner of dart throwing: a
+ * location is drawn uniformly at random and kept if no Entity is within {@value #GAP}
+ * pixels of the spawned Entity, otherwise another is drawn, up to {@value #ATTEMPTS}
+ * times. Whether a location is free is checked against the {@link SpatialGrid} of the
+ * Erina, which only looks at the few cells around it, so each spawn takes constant time
+ * however many Entities are in play. Entities spawned earlier in the same cycle are
+ * already in the grid and are kept clear of as well.
+ *
+ * <p>When the Erina is too crowded to find a free location in time, the last location
+ * drawn is used.
+ *
+ * <p>A SpawnPlacer is only used by the thread running the Erina and is not synchronized.
+ *
+ * @version 1.0
+ * @author Eric
+ */
+final class SpawnPlacer {
+
+	/** The number of locations drawn before giving up on finding a free one. */
+	static final int ATTEMPTS = 30;
+
+	/** The least distance kept between a spawned Entity and any other Entity. */
+	static final int GAP = 16;
+
+	private final SpatialGrid grid;
+	private final Random random;
+	private final int width, height;
+
+
+	/**
+	 * Creates a SpawnPlacer.
+	 * @param grid	the SpatialGrid of the Entities in the Erina
+	 * @param random	the source of the random locations
+	 * @param width	the width of the Erina
+	 * @param height	the height of the Erina
+	 */
+	SpawnPlacer(SpatialGrid grid, Random random, int width, int height) {
+		this.grid = grid;
+		this.random = random;
+		this.width = width;
+		this.height = height;
+	}
+
+
+	/**
+	 * Finds a location for an Entity of the specified bounding radius. The Entity fits in
+	 * the Erina if the Erina is large enough.
+	 * @param radius	the bounding radius of the Entity, see {@link EntityStore#getRadius(int)}
+	 * @return	the location
+	 */
+	Coordinate place(int radius) {
+		// keep whole Entities inside the Erina where possible
+		final int marginX = width > 2 * radius ? radius : 0;
+		final int marginY = height > 2 * radius ? radius : 0;
+
+		int x = 0, y = 0;
+		for (int i = 0; i < ATTEMPTS; i++) {
+			x = marginX + random.nextInt(width - 2 * marginX);
+			y = marginY + random.nextInt(height - 2 * marginY);
+
+			if (grid.isClear(x, y, radius, GAP))
+				break;
+		}
+		return new Coordinate(x, y);
+	}
+}
@@ -0,0 +1,196 @@
+package erina.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A weighted table of the values of the Nuggets or Sauces spawned in a match. Each value
+ * is picked with a probability proportional to its weight.
+ *
+ * <p>Values are sampled in constant time however many there are, with the alias method
+ * of Walker, built as described by Vose: the table is split into as many columns of
+ * equal probability as there are values, each column holding at most two values. A
+ * sample picks a column and then one of its two values, using a single random number.
+ *
+ * <p>SpawnTables are immutable, use {@link SpawnTable.Builder} or
+ * {@link SpawnTable#parse(String)} to create one.
+ *
+ * @version 1.0
+ * @author Eric
+ * @see	ErinaConfig.Builder#nuggetValues(SpawnTable)
+ * @see	ErinaConfig.Builder#sauceValues(SpawnTable)
+ */
+public final class SpawnTable {
+
+	/** The values spawned unless configured: 10% are 1500, 30% are 1000, 60% are 500. */
+	public static final SpawnTable DEFAULT = new Builder()
+			.add(1500, 1)
+			.add(1000, 3)
+			.add(500, 6)
+			.build();
+
+	private final int[] values;
+	private final double[] weights;
+
+	// the alias table: column i holds values[i] with probability probabilities[i], and
+	// values[aliases[i]] otherwise
+	private final double[] probabilities;
+	private final int[] aliases;
+
+
+	private SpawnTable(int[] values, double[] weights) {
+		this.values = values;
+		this.weights = weights;
+
+		final int n = values.length;
+		probabilities = new double[n];
+		aliases = new int[n];
+
+		double total = 0;
+		for (double weight : weights)
+			total += weight;
+
+		// scaled so that a column holds 1
+		final double[] scaled = new double[n];
+		final int[] small = new int[n], large = new int[n];
+		int smallCount = 0, largeCount = 0;
+		for (int i = 0; i < n; i++) {
+			scaled[i] = weights[i] * n / total;
+			if (scaled[i] < 1)
+				small[smallCount++] = i;
+			else
+				large[largeCount++] = i;
+		}
+
+		// fill up each small column with what a large one has over
+		while (smallCount > 0 && largeCount > 0) {
+			final int less = small[--smallCount];
+			final int more = large[--largeCount];
+
+			probabilities[less] = scaled[less];
+			aliases[less] = more;
+
+			scaled[more] = scaled[more] + scaled[less] - 1;
+			if (scaled[more] < 1)
+				small[smallCount++] = more;
+			else
+				large[largeCount++] = more;
+		}
+
+		// what is left is full, up to rounding
+		while (largeCount > 0)
+			probabilities[large[--largeCount]] = 1;
+		while (smallCount > 0)
+			probabilities[small[--smallCount]] = 1;
+	}
+
+
+	/**
+	 * Parses a SpawnTable from pairs of values and weights, such as
+	 * {@code "1500:1,1000:3,500:6"}.
+	 * @param table	the values and weights, each separated by a colon, pairs separated by
+	 * commas
+	 * @return	the SpawnTable
+	 * @throws IllegalArgumentException	if the table is malformed, see
+	 * {@link Builder#add(int, double)}
+	 */
+	public static SpawnTable parse(String table) {
+		final Builder builder = new Builder();
+		for (String pair : table.split(",")) {
+			final String[] fields = pair.trim().split(":");
+			if (fields.length != 2)
+				throw new IllegalArgumentException("Illegal value and weight: " + pair);
+			try {
+				builder.add(Integer.parseInt(fields[0].trim()),
+						Double.parseDouble(fields[1].trim()));
+			}
+			catch (NumberFormatException e) {
+				throw new IllegalArgumentException("Illegal value and weight: " + pair, e);
+			}
+		}
+		return builder.build();
+	}
+
+
+	/**
+	 * Picks a value at random.
+	 * @param random	the source of the random number
+	 * @return	one of the values in this table
+	 */
+	int sample(Random random) {
+		final double column = random.nextDouble() * values.length;
+		// rounding may reach the end
+		final int i = Math.min((int) column, values.length - 1);
+		return column - i < probabilities[i] ? values[i] : values[aliases[i]];
+	}
+
+	/** Returns the number of values in this table. */
+	public int size() { return values.length; }
+
+	/** Returns the value at the specified index, in the order added. */
+	public int getValue(int index) { return values[index]; }
+
+	/** Returns the weight of the value at the specified index, in the order added. */
+	public double getWeight(int index) { return weights[index]; }
+
+
+	/**
+	 * Returns the values and weights in the form read by {@link SpawnTable#parse(String)}.
+	 */
+	@Override
+	public String toString() {
+		final StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < values.length; i++) {
+			if (i > 0)
+				builder.append(',');
+			builder.append(values[i]).append(':').append(weights[i]);
+		}
+		return builder.toString();
+	}
+
+
+	/**
+	 * Builds a SpawnTable value by value.
+	 */
+	public static final class Builder {
+		private final List<Integer> values = new ArrayList<>();
+		private final List<Double> weights = new ArrayList<>();
+
+		/**
+		 * Adds a value with the specified weight.
+		 * @param value	the value, the energy of the Nugget or Sauce
+		 * @param weight	the weight, relative to the weights of the other values
+		 * @return	this instance
+		 * @throws IllegalArgumentException	if the value is not positive, the weight is
+		 * not positive and finite, or the value was added before
+		 */
+		public Builder add(int value, double weight) {
+			if (value <= 0)
+				throw new IllegalArgumentException("Illegal value: " + value);
+			if (!(weight > 0) || Double.isInfinite(weight))
+				throw new IllegalArgumentException("Illegal weight: " + weight);
+			if (values.contains(value))
+				throw new IllegalArgumentException("Value added twice: " + value);
+
+			values.add(value);
+			weights.add(weight);
+			return this;
+		}
+
+		/**
+		 * Creates a SpawnTable with the values added so far.
+		 * @return	the SpawnTable
+		 * @throws IllegalStateException	if no value was added
+		 */
+		public SpawnTable build() {
+			if (values.isEmpty())
+				throw new IllegalStateException("No values added");
+
+			return new SpawnTable(
+					values.stream().mapToInt(Integer::intValue).toArray(),
+					weights.stream().mapToDouble(Double::doubleValue).toArray()
+			);
+		}
+	}
+}
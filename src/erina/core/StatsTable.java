@@ -0,0 +1,181 @@
+package erina.core;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Holds the counters of the CompetitorStats of all Competitors in an Erina, one array of
+ * longs per counter indexed by the row of each Competitor. Passes over all Competitors,
+ * like scoring at the end of the game, walk contiguous arrays.
+ *
+ * <p>Only the thread running the Erina updates the counters, with plain array writes and
+ * no locking. At the end of each cycle the Erina calls {@link StatsTable#publish()}, which
+ * copies the counters to a second set of arrays under the write lock of a StampedLock.
+ * Other threads read the published counters optimistically, without taking the lock
+ * unless a read raced with a publish, so they see the counters as of the end of a cycle.
+ * Counters of the same row read with {@link StatsTable#readRow(int, long[])} are always
+ * from the same cycle.
+ *
+ * @version 1.0
+ * @author Eric
+ * @see	CompetitorStats
+ */
+final class StatsTable {
+
+	static final int KILLS = 0;
+	static final int TOTAL_DISTANCE = 1;
+	static final int CYCLES = 2;
+	static final int SCORE = 3;
+	static final int NUGGETS_COUNT = 4;
+	static final int NUGGETS_VALUE = 5;
+	static final int SAUCES_COUNT = 6;
+	static final int SAUCES_VALUE = 7;
+	static final int HITS_INFLICTED = 8;
+	static final int HITS_ABSORBED = 9;
+	static final int DAMAGE_INFLICTED = 10;
+	static final int DAMAGE_ABSORBED = 11;
+	static final int MISSED_CYCLES = 12;
+	static final int CANCELLED_CALLS = 13;
+
+	/** The number of counters in a row. */
+	static final int COUNTERS = 14;
+
+	// rows are never reused, a dead Competitor keeps its stats
+	private int rows = 0;
+	// id of the Competitor of each row, for looking up its energy
+	private int[] ids = new int[16];
+	private long[][] live = new long[COUNTERS][16];
+
+	private final StampedLock lock = new StampedLock();
+	// replaced when the table grows, under the write lock
+	private long[][] published = new long[COUNTERS][16];
+
+
+	/**
+	 * Adds a row of zeros for the Competitor with the specified id.
+	 * @return	the row
+	 */
+	int addRow(int id) {
+		if (rows == ids.length) {
+			final int capacity = rows * 2;
+			ids = Arrays.copyOf(ids, capacity);
+			for (int i = 0; i < COUNTERS; i++)
+				live[i] = Arrays.copyOf(live[i], capacity);
+		}
+
+		ids[rows] = id;
+		return rows++;
+	}
+
+
+	/** Returns the live value of the counter, only for the thread running the Erina. */
+	long get(int counter, int row) { return live[counter][row]; }
+
+	/** Sets the live value of the counter. */
+	void set(int counter, int row, long value) { live[counter][row] = value; }
+
+	/** Adds to the live value of the counter. */
+	void add(int counter, int row, long amount) { live[counter][row] += amount; }
+
+
+	/**
+	 * Calculates the score of the Competitor in the row from its counters and its
+	 * energy, and sets the score counter.
+	 * @return	the score
+	 */
+	long calculateScore(int row, int energy) {
+		long score = energy;
+		score += live[KILLS][row] * 500;
+		score += live[DAMAGE_INFLICTED][row] * 5;	// hits inflicted/absorbed are always equal
+		score -= live[DAMAGE_ABSORBED][row] * 5;	// using hits would cancel each other
+		score += live[TOTAL_DISTANCE][row] / 2;
+		score += live[CYCLES][row];
+		score += live[NUGGETS_COUNT][row] * 50;
+		score += live[NUGGETS_VALUE][row];
+
+		live[SCORE][row] = score;
+		return score;
+	}
+
+	/**
+	 * Calculates the scores of all Competitors, see {@link StatsTable#calculateScore(int, int)}.
+	 * @param store	the EntityStore holding the energy of the Competitors
+	 */
+	void calculateScores(EntityStore store) {
+		for (int row = 0; row < rows; row++)
+			calculateScore(row, store.getEnergy(ids[row]));
+	}
+
+
+	/**
+	 * Makes the live counters visible to other threads. Called by the thread running
+	 * the Erina at the end of each cycle.
+	 */
+	void publish() {
+		final long stamp = lock.writeLock();
+		try {
+			if (published[0].length < rows) {
+				final long[][] grown = new long[COUNTERS][ids.length];
+				for (int i = 0; i < COUNTERS; i++)
+					System.arraycopy(live[i], 0, grown[i], 0, rows);
+				published = grown;
+			}
+			else {
+				for (int i = 0; i < COUNTERS; i++)
+					System.arraycopy(live[i], 0, published[i], 0, rows);
+			}
+		}
+		finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 * Returns the published value of the counter, 0 if the row was added since the last
+	 * publish. Safe to call from any thread.
+	 */
+	long read(int counter, int row) {
+		long stamp = lock.tryOptimisticRead();
+		long value = readUnlocked(counter, row);
+
+		if (!lock.validate(stamp)) {
+			stamp = lock.readLock();
+			try {
+				value = readUnlocked(counter, row);
+			}
+			finally {
+				lock.unlockRead(stamp);
+			}
+		}
+		return value;
+	}
+
+	/**
+	 * Copies the published values of all counters in the row, all from the same
+	 * publish. Safe to call from any thread.
+	 * @param row	the row to read
+	 * @param values	the array to copy to, indexed by counter
+	 */
+	void readRow(int row, long[] values) {
+		long stamp = lock.tryOptimisticRead();
+		for (int i = 0; i < COUNTERS; i++)
+			values[i] = readUnlocked(i, row);
+
+		if (!lock.validate(stamp)) {
+			stamp = lock.readLock();
+			try {
+				for (int i = 0; i < COUNTERS; i++)
+					values[i] = readUnlocked(i, row);
+			}
+			finally {
+				lock.unlockRead(stamp);
+			}
+		}
+	}
+
+	private long readUnlocked(int counter, int row) {
+		// the array may be replaced by a concurrent publish, read it once
+		final long[] column = published[counter];
+		return row < column.length ? column[row] : 0;
+	}
+}
@@ -0,0 +1,132 @@
+package erina.core;
+
+import java.util.Arrays;
+
+/**
+ * Times the phases of each cycle of an Erina, see {@link Erina#act()}. The durations of
+ * the last {@value #WINDOW} cycles are kept for each phase, from which the minimum, mean
+ * and 99th percentile are worked out when asked; the longest duration of the whole match
+ * is kept as well, so that a single slow cycle is not lost once it leaves the window.
+ *
+ * <p>A disabled TickProfiler does not read the clock at all, each call returns after
+ * checking a final field. A TickProfiler is only used by the thread running the Erina and
+ * is not synchronized.
+ *
+ * @version 1.0
+ * @author Eric
+ * @see	ErinaConfig#isProfiling()
+ */
+final class TickProfiler {
+
+	/**
+	 * The phases of a cycle, in the order they run.
+	 */
+	enum Phase {
+		NUGGETS("add nuggets"),
+		SAUCES("add sauces"),
+		MANEUVERS("maneuvers"),
+		TIMERS("sauces & timers"),
+		ENERGY("energy & cycles"),
+		SNAPSHOT("sync & snapshot"),
+		GAME_END_CHECK("game end check");
+
+		private final String label;
+
+		Phase(String label) { this.label = label; }
+
+		@Override
+		public String toString() { return label; }
+	}
+
+	/** The number of most recent cycles the statistics are taken over. */
+	static final int WINDOW = 1024;
+
+	private static final Phase[] PHASES = Phase.values();
+	// the whole cycle is kept after the phases
+	private static final int TOTAL = PHASES.length;
+
+	private final boolean enabled;
+
+	// durations by phase, then by cycle modulo WINDOW
+	private final long[][] samples;
+	private final long[] max;
+	private long cycles;
+
+	private long cycleStart, lapStart;
+
+
+	/**
+	 * Creates a TickProfiler.
+	 * @param enabled	false for a TickProfiler that does nothing
+	 */
+	TickProfiler(boolean enabled) {
+		this.enabled = enabled;
+		samples = enabled ? new long[TOTAL + 1][WINDOW] : null;
+		max = enabled ? new long[TOTAL + 1] : null;
+	}
+
+
+	/** Checks if this TickProfiler times anything. */
+	boolean isEnabled() { return enabled; }
+
+	/** Marks the start of a cycle, which is also the start of its first phase. */
+	void startCycle() {
+		if (!enabled) return;
+		cycleStart = lapStart = System.nanoTime();
+	}
+
+	/** Marks the end of the specified phase, which is also the start of the next one. */
+	void lap(Phase phase) {
+		if (!enabled) return;
+		final long now = System.nanoTime();
+		record(phase.ordinal(), now - lapStart);
+		lapStart = now;
+	}
+
+	/** Marks the end of a cycle. */
+	void endCycle() {
+		if (!enabled) return;
+		record(TOTAL, System.nanoTime() - cycleStart);
+		cycles++;
+	}
+
+	private void record(int index, long nanos) {
+		samples[index][(int) (cycles % WINDOW)] = nanos;
+		if (nanos > max[index])
+			max[index] = nanos;
+	}
+
+
+	/**
+	 * Returns a table of the minimum, mean and 99th percentile over the last cycles, and
+	 * the maximum over the match, of each phase and of whole cycles, in microseconds.
+	 */
+	@Override
+	public String toString() {
+		if (!enabled)
+			return "Tick profiler disabled";
+
+		final int count = (int) Math.min(cycles, WINDOW);
+		final StringBuilder builder = new StringBuilder(String.format(
+				"Last %d of %d cycles, in us:%n%-16s %9s %9s %9s %9s%n",
+				count, cycles, "phase", "min", "mean", "p99", "max"));
+
+		final long[] sorted = new long[count];
+		for (int i = 0; i <= TOTAL; i++) {
+			System.arraycopy(samples[i], 0, sorted, 0, count);
+			Arrays.sort(sorted);
+
+			long total = 0;
+			for (long sample : sorted)
+				total += sample;
+
+			builder.append(String.format("%-16s %9.1f %9.1f %9.1f %9.1f%n",
+					i == TOTAL ? "cycle" : PHASES[i],
+					count == 0 ? 0 : sorted[0] / 1e3,
+					count == 0 ? 0 : total / 1e3 / count,
+					count == 0 ? 0 : sorted[Math.max(0, (int) Math.ceil(0.99 * count) - 1)] / 1e3,
+					max[i] / 1e3));
+		}
+		return builder.toString();
+	}
+}
@@ -0,0 +1,116 @@
+package erina.core;
+
+import java.util.Arrays;
+
+/**
+ * Schedules events for later cycles of an Erina, like the expiry of a Sauce or the next
+ * milestone to log. Events are kept in a hashed wheel: an event due at cycle {@code c}
+ * is put in slot {@code c % slots}, and advancing to a cycle only looks at the events in
+ * its slot. Events due further away than one turn of the wheel stay in their slot until
+ * their cycle comes round. Scheduling and advancing therefore cost the same however many
+ * events are pending.
+ *
+ * <p>Events due at the same cycle fire in the order they were scheduled.
+ *
+ * <p>A TimerWheel is only used by the thread running the Erina and is not synchronized.
+ *
+ * @version 1.0
+ * @author Eric
+ */
+final class TimerWheel {
+
+	private final int mask;
+
+	// per slot, the cycle each event is due at and the event
+	private final long[][] dues;
+	private final Runnable[][] events;
+	private final int[] sizes;
+
+	// the last cycle advanced to
+	private long now;
+
+
+	/**
+	 * Creates a TimerWheel.
+	 * @param slots	the number of slots, a power of two; events are cheapest when most
+	 * are due within this many cycles
+	 * @param now	the current cycle, events can be scheduled for any cycle after it
+	 * @throws IllegalArgumentException	if slots is not a positive power of two
+	 */
+	TimerWheel(int slots, long now) {
+		if (slots <= 0 || Integer.bitCount(slots) != 1)
+			throw new IllegalArgumentException("Illegal number of slots: " + slots);
+
+		mask = slots - 1;
+		dues = new long[slots][];
+		events = new Runnable[slots][];
+		sizes = new int[slots];
+		this.now = now;
+	}
+
+
+	/**
+	 * Schedules the event to run when the wheel advances to the specified cycle.
+	 * @param cycle	the cycle the event is due at
+	 * @param event	the event
+	 * @throws IllegalArgumentException	if the cycle is not after the current cycle
+	 */
+	void schedule(long cycle, Runnable event) {
+		if (cycle <= now)
+			throw new IllegalArgumentException("Cycle " + cycle + " is not after " + now);
+
+		final int slot = (int) (cycle & mask);
+		final int size = sizes[slot];
+		if (dues[slot] == null) {
+			dues[slot] = new long[4];
+			events[slot] = new Runnable[4];
+		}
+		else if (size == dues[slot].length) {
+			dues[slot] = Arrays.copyOf(dues[slot], size * 2);
+			events[slot] = Arrays.copyOf(events[slot], size * 2);
+		}
+
+		dues[slot][size] = cycle;
+		events[slot][size] = event;
+		sizes[slot] = size + 1;
+	}
+
+	/**
+	 * Advances to the specified cycle, running the events due at each cycle on the way.
+	 * Events may schedule further events for later cycles.
+	 * @param cycle	the cycle to advance to
+	 */
+	void advanceTo(long cycle) {
+		while (now < cycle)
+			fire(++now);
+	}
+
+	private void fire(long cycle) {
+		final int slot = (int) (cycle & mask);
+		final int size = sizes[slot];
+		if (size == 0) return;
+
+		// keep the events not yet due in order, at the front of the slot
+		int kept = 0;
+		for (int i = 0; i < size; i++) {
+			// the arrays may be replaced when an event schedules another
+			final long due = dues[slot][i];
+			final Runnable event = events[slot][i];
+
+			if (due == cycle)
+				event.run();
+			else {
+				dues[slot][kept] = due;
+				events[slot][kept] = event;
+				kept++;
+			}
+		}
+
+		// then the events scheduled into this slot while firing
+		final int added = sizes[slot] - size;
+		System.arraycopy(dues[slot], size, dues[slot], kept, added);
+		System.arraycopy(events[slot], size, events[slot], kept, added);
+		sizes[slot] = kept + added;
+		Arrays.fill(events[slot], kept + added, size + added, null);
+	}
+}
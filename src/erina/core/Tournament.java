@@ -0,0 +1,494 @@
+package erina.core;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.BiFunction;
+
+/**
+ * A Tournament plays many headless matches in the Erina at once and aggregates the
+ * results.
+ *
+ * <p>Entrants are registered with a name and a factory that creates the Competitor for a
+ * match, usually the constructor of a Competitor subclass:
+ *
+ * <pre>
+ *   new Tournament()
+ *           .addEntrant("TC_2", TestCompetitor2::new)
+ *           .addEntrant("Jstew", Jstew::new)
+ *           .playRoundRobin(2);
+ * </pre>
+ *
+ * <p>Every match builds its own Erina, ManeuverFetcher and Competitors, so matches
+ * share no state. At most {@code parallelism} matches run at the same time.
+ *
+ * <p>Matches are played with the settings of an ErinaConfig, such as the size of the
+ * Erina, the number of cycles, the spawn tables and the time budgets, always headless.
+ *
+ * <p>Each match is seeded from the seed of the Tournament and its index among the
+ * line-ups, so a Tournament played again with the same seed spawns the same Nuggets and
+ * Sauces in every match. The {@link Results} report the seed of each match, with which
+ * a single match can be played again, or recorded, on its own.
+ *
+ * @version 1.2
+ * @author Eric
+ */
+public final class Tournament {
+
+	private final Map<String, BiFunction<Erina, String, Competitor>> entrants =
+			new LinkedHashMap<>();
+
+	// the settings of every match, but the seed
+	private final ErinaConfig config;
+	private final int parallelism;
+
+
+	/**
+	 * Creates a Tournament playing matches with the default settings, running as many
+	 * matches at once as there are processors.
+	 */
+	public Tournament() { this(ErinaConfig.DEFAULT); }
+
+	/**
+	 * Creates a Tournament playing matches with the default settings, running at most
+	 * the specified number of matches at once.
+	 * @param parallelism	the maximum number of matches running at once
+	 * @throws IllegalArgumentException	if parallelism is not positive
+	 */
+	public Tournament(int parallelism) { this(ErinaConfig.DEFAULT, parallelism); }
+
+	/**
+	 * Creates a Tournament playing matches with the specified settings, running as many
+	 * matches at once as there are processors.
+	 * @see	Tournament#Tournament(ErinaConfig, int)
+	 */
+	public Tournament(ErinaConfig config) {
+		this(config, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Creates a Tournament playing matches with the specified settings, running at most
+	 * the specified number of matches at once. Matches are always headless. The seed of
+	 * the ErinaConfig, if any, is the seed of the Tournament when none is given to play.
+	 * @param config	the settings of every match
+	 * @param parallelism	the maximum number of matches running at once
+	 * @throws IllegalArgumentException	if parallelism is not positive, or the ErinaConfig
+	 * sets a recording, a replay or an event log, which matches cannot share
+	 */
+	public Tournament(ErinaConfig config, int parallelism) {
+		if (parallelism < 1)
+			throw new IllegalArgumentException("parallelism must be positive");
+		if (config.getRecording() != null || config.getReplay() != null
+				|| config.getEventLog() != null)
+			throw new IllegalArgumentException(
+					"Matches of a Tournament cannot share a recording, replay or event log");
+
+		this.config = config.toBuilder().headless(true).build();
+		this.parallelism = parallelism;
+	}
+
+
+	/**
+	 * Registers an entrant. The factory is invoked once per match the entrant takes part
+	 * in, with the Erina of that match and the name of the entrant.
+	 * @param name	the name of the entrant, also used as the name of its Competitors
+	 * @param factory	creates the Competitor of the entrant
+	 * @return	this instance
+	 * @throws IllegalArgumentException	if an entrant with the same name already exists
+	 */
+	public Tournament addEntrant(
+			String name, BiFunction<Erina, String, Competitor> factory) {
+		Objects.requireNonNull(name);
+		Objects.requireNonNull(factory);
+
+		if (entrants.putIfAbsent(name, factory) != null)
+			throw new IllegalArgumentException("Duplicated entrant: " + name);
+
+		return this;
+	}
+
+	/**
+	 * Returns the names of all registered entrants in the order of registration.
+	 */
+	public List<String> getEntrants() { return new ArrayList<>(entrants.keySet()); }
+
+
+	/**
+	 * Plays one match for every combination of {@code matchSize} entrants, with the seed
+	 * of the ErinaConfig, or one picked at random.
+	 * @see	Tournament#playRoundRobin(int, long)
+	 */
+	public Results playRoundRobin(int matchSize) throws InterruptedException {
+		return playRoundRobin(matchSize, pickSeed());
+	}
+
+	/**
+	 * Plays one match for every combination of {@code matchSize} entrants. With a match
+	 * size of 2, every entrant meets every other entrant exactly once.
+	 * @param matchSize	the number of entrants in each match
+	 * @param seed	the seed of the Tournament, from which each match is seeded
+	 * @return	the aggregated Results
+	 * @throws IllegalArgumentException	if the match size is less than 2 or greater than
+	 * the number of entrants
+	 * @throws InterruptedException	if interrupted while waiting for matches to end
+	 */
+	public Results playRoundRobin(int matchSize, long seed) throws InterruptedException {
+		final List<String> names = getEntrants();
+		checkMatchSize(matchSize, names.size());
+
+		final List<List<String>> lineUps = new ArrayList<>();
+		addCombinations(names, matchSize, 0, new ArrayList<>(), lineUps);
+
+		return play(lineUps, seed);
+	}
+
+	/**
+	 * Plays the specified number of matches, each between {@code matchSize} entrants
+	 * drawn at random, with the seed of the ErinaConfig, or one picked at random.
+	 * @see	Tournament#playRandom(int, int, long)
+	 */
+	public Results playRandom(int matches, int matchSize) throws InterruptedException {
+		return playRandom(matches, matchSize, pickSeed());
+	}
+
+	/**
+	 * Plays the specified number of matches, each between {@code matchSize} entrants
+	 * drawn at random.
+	 * @param matches	the number of matches to play
+	 * @param matchSize	the number of entrants in each match
+	 * @param seed	the seed of the Tournament, from which the line-ups are drawn and each
+	 * match is seeded
+	 * @return	the aggregated Results
+	 * @throws IllegalArgumentException	if the match size is less than 2 or greater than
+	 * the number of entrants
+	 * @throws InterruptedException	if interrupted while waiting for matches to end
+	 */
+	public Results playRandom(int matches, int matchSize, long seed)
+			throws InterruptedException {
+		final List<String> names = getEntrants();
+		checkMatchSize(matchSize, names.size());
+
+		final Random random = new Random(seed);
+		final List<List<String>> lineUps = new ArrayList<>();
+
+		for (int i = 0; i < matches; i++) {
+			Collections.shuffle(names, random);
+			lineUps.add(new ArrayList<>(names.subList(0, matchSize)));
+		}
+
+		return play(lineUps, seed);
+	}
+
+	/**
+	 * Plays one match for each of the specified line-ups, with the seed of the
+	 * ErinaConfig, or one picked at random.
+	 * @see	Tournament#play(List, long)
+	 */
+	public Results play(List<? extends List<String>> lineUps) throws InterruptedException {
+		return play(lineUps, pickSeed());
+	}
+
+	/**
+	 * Plays one match for each of the specified line-ups.
+	 * @param lineUps	the names of the entrants in each match
+	 * @param seed	the seed of the Tournament, from which each match is seeded
+	 * @return	the aggregated Results
+	 * @throws IllegalArgumentException	if a line-up contains an unknown entrant
+	 * @throws IllegalStateException	if a match failed
+	 * @throws InterruptedException	if interrupted while waiting for matches to end
+	 */
+	public Results play(List<? extends List<String>> lineUps, long seed)
+			throws InterruptedException {
+		for (List<String> lineUp : lineUps) {
+			for (String name : lineUp) {
+				if (!entrants.containsKey(name))
+					throw new IllegalArgumentException("Unknown entrant: " + name);
+			}
+		}
+
+		final ExecutorService pool = Executors.newFixedThreadPool(parallelism);
+
+		try {
+			final List<Future<List<Competitor>>> matches = new ArrayList<>();
+			final long[] seeds = new long[lineUps.size()];
+			for (int i = 0; i < lineUps.size(); i++) {
+				final List<String> copy = new ArrayList<>(lineUps.get(i));
+				final long matchSeed = seeds[i] = matchSeed(seed, i);
+				matches.add(pool.submit(() -> playMatch(copy, matchSeed)));
+			}
+
+			final Results results = new Results(seed);
+			for (int i = 0; i < matches.size(); i++) {
+				try {
+					results.add(seeds[i], matches.get(i).get());
+				}
+				catch (ExecutionException e) {
+					throw new IllegalStateException("Match failed", e.getCause());
+				}
+			}
+
+			return results;
+		}
+		finally {
+			pool.shutdownNow();
+		}
+	}
+
+
+	private long pickSeed() {
+		return config.getSeed().orElseGet(() -> new Random().nextLong());
+	}
+
+	/**
+	 * Returns the seed of the match with the specified index.
+	 */
+	private static long matchSeed(long seed, int index) {
+		// SplitMix64, so that neighbouring matches do not get similar seeds
+		long z = seed + (index + 1) * 0x9E3779B97F4A7C15L;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	/**
+	 * Plays a single headless match between the specified entrants.
+	 * @return	the Competitors ranked by score
+	 */
+	private List<Competitor> playMatch(List<String> lineUp, long seed) {
+		final Erina erina = new Erina(config.toBuilder().seed(seed).build()) {
+			@Override
+			protected List<Competitor> prepareCompetitors() {
+				final List<Competitor> competitors = new ArrayList<>();
+				for (String name : lineUp)
+					competitors.add(entrants.get(name).apply(this, name));
+				return competitors;
+			}
+		};
+
+		erina.run();
+
+		return erina.getRankedCompetitors();
+	}
+
+
+	private static void checkMatchSize(int matchSize, int entrantCount) {
+		if (matchSize < 2 || matchSize > entrantCount)
+			throw new IllegalArgumentException("Illegal match size: " + matchSize);
+	}
+
+	/**
+	 * Adds every combination of {@code size} names starting at {@code from} to the
+	 * specified List.
+	 */
+	private static void addCombinations(
+			List<String> names, int size, int from,
+			List<String> current, List<List<String>> combinations) {
+		if (current.size() == size) {
+			combinations.add(new ArrayList<>(current));
+			return;
+		}
+
+		for (int i = from; i <= names.size() - (size - current.size()); i++) {
+			current.add(names.get(i));
+			addCombinations(names, size, i + 1, current, combinations);
+			current.remove(current.size() - 1);
+		}
+	}
+
+
+
+	/**
+	 * The aggregated results of the matches played in a Tournament.
+	 */
+	public static final class Results {
+
+		private final long seed;
+		private final Map<String, Standing> standings = new LinkedHashMap<>();
+		private final List<Match> matches = new ArrayList<>();
+
+		private Results(long seed) { this.seed = seed; }
+
+		/** Aggregates a match, the Competitors must be ranked by score. */
+		private void add(long matchSeed, List<Competitor> ranked) {
+			matches.add(new Match(matches.size(), matchSeed, ranked));
+
+			for (int rank = 0; rank < ranked.size(); rank++) {
+				final Competitor competitor = ranked.get(rank);
+				standings.computeIfAbsent(competitor.getName(), Standing::new)
+						.add(competitor, rank == 0);
+			}
+		}
+
+		/** Returns the seed of the Tournament. */
+		public long getSeed() { return seed; }
+
+		/** Returns the number of matches played. */
+		public int getMatchCount() { return matches.size(); }
+
+		/** Returns the results of each match, in the order of the line-ups. */
+		public List<Match> getMatches() { return Collections.unmodifiableList(matches); }
+
+		/**
+		 * Returns the Standings of all entrants that played, from the highest average
+		 * score to the lowest.
+		 */
+		public List<Standing> getStandings() {
+			final List<Standing> list = new ArrayList<>(standings.values());
+			list.sort(Comparator.comparingDouble(Standing::getAverageScore).reversed());
+			return list;
+		}
+
+		@Override
+		public String toString() {
+			final StringBuilder builder = new StringBuilder();
+			builder.append(String.format("%d matches played, Seed: %d%n", matches.size(), seed));
+
+			int rank = 1;
+			for (Standing standing : getStandings())
+				builder.append(String.format("#%-3d %s%n", rank++, standing));
+
+			builder.append(String.format("%n"));
+			for (Match match : matches)
+				builder.append(match).append(String.format("%n"));
+
+			return builder.toString();
+		}
+	}
+
+
+	/**
+	 * The outcome of a single match of a Tournament. To play the match again, for example
+	 * to record it, play the same line-up in an Erina with the seed of the match.
+	 */
+	public static final class Match {
+
+		private final int index;
+		private final long seed;
+		private final List<String> ranking = new ArrayList<>();
+		private final List<Integer> scores = new ArrayList<>();
+
+		private Match(int index, long seed, List<Competitor> ranked) {
+			this.index = index;
+			this.seed = seed;
+			for (Competitor competitor : ranked) {
+				ranking.add(competitor.getName());
+				scores.add(competitor.getStats().getScore());
+			}
+		}
+
+		/** Returns the index of the match among the line-ups of the Tournament. */
+		public int getIndex() { return index; }
+
+		/** Returns the seed the match was played with. */
+		public long getSeed() { return seed; }
+
+		/** Returns the names of the entrants of the match, from the highest score. */
+		public List<String> getRanking() { return Collections.unmodifiableList(ranking); }
+
+		/** Returns the scores of the entrants, in the order of {@link Match#getRanking()}. */
+		public List<Integer> getScores() { return Collections.unmodifiableList(scores); }
+
+		@Override
+		public String toString() {
+			final StringBuilder builder = new StringBuilder(
+					String.format("Match:%5d, Seed:%21d, Ranking:", index, seed));
+			for (int i = 0; i < ranking.size(); i++) {
+				builder.append(String.format("%s %s (%d)",
+						i == 0 ? "" : ",", ranking.get(i), scores.get(i)));
+			}
+			return builder.toString();
+		}
+	}
+
+
+	/**
+	 * The CompetitorStats and scores of an entrant accumulated over all of its matches.
+	 */
+	public static final class Standing {
+
+		private final String name;
+		private int matches, wins, survivals;
+		private long totalScore, kills, hitsInflicted, damageInflicted, damageAbsorbed,
+				totalDistance, cycles, nuggetsCount, nuggetsValue, saucesCount, saucesValue;
+
+		private Standing(String name) { this.name = name; }
+
+		private void add(Competitor competitor, boolean won) {
+			final CompetitorStats stats = competitor.getStats();
+
+			matches++;
+			if (won) wins++;
+			if (!competitor.isDead()) survivals++;
+
+			totalScore += stats.getScore();
+			kills += stats.getKills();
+			hitsInflicted += stats.getHitsInflicted();
+			damageInflicted += stats.getDamageInflicted();
+			damageAbsorbed += stats.getDamageAbsorbed();
+			totalDistance += stats.getTotalDistance();
+			cycles += stats.getCyclesSurvived();
+			nuggetsCount += stats.getNuggetsCount();
+			nuggetsValue += stats.getNuggetsValue();
+			saucesCount += stats.getSaucesCount();
+			saucesValue += stats.getSaucesValue();
+		}
+
+		/** Returns the name of the entrant. */
+		public String getName() { return name; }
+
+		/** Returns the number of matches the entrant played. */
+		public int getMatches() { return matches; }
+
+		/** Returns the number of matches the entrant finished with the highest score. */
+		public int getWins() { return wins; }
+
+		/** Returns the number of matches the entrant was alive at the end of. */
+		public int getSurvivals() { return survivals; }
+
+		/** Returns the sum of the scores of the entrant. */
+		public long getTotalScore() { return totalScore; }
+
+		/** Returns the average score of the entrant. */
+		public double getAverageScore() {
+			return matches == 0 ? 0 : (double) totalScore / matches;
+		}
+
+		/** Returns the total number of kills. */
+		public long getKills() { return kills; }
+
+		/** Returns the total number of hits inflicted. */
+		public long getHitsInflicted() { return hitsInflicted; }
+
+		/** Returns the total amount of damage inflicted. */
+		public long getDamageInflicted() { return damageInflicted; }
+
+		/** Returns the total amount of damage absorbed. */
+		public long getDamageAbsorbed() { return damageAbsorbed; }
+
+		/** Returns the total distance traveled. */
+		public long getTotalDistance() { return totalDistance; }
+
+		/** Returns the total number of cycles survived. */
+		public long getCyclesSurvived() { return cycles; }
+
+		/** Returns the total number of Nuggets consumed. */
+		public long getNuggetsCount() { return nuggetsCount; }
+
+		/** Returns the total value of Nuggets consumed. */
+		public long getNuggetsValue() { return nuggetsValue; }
+
+		/** Returns the total number of Sauces consumed. */
+		public long getSaucesCount() { return saucesCount; }
+
+		/** Returns the total value of energy acquired from Sauces. */
+		public long getSaucesValue() { return saucesValue; }
+
+		@Override
+		public String toString() {
+			return String.format(
+					"Competitor:%15s, Matches:%4d, Wins:%4d, Survivals:%4d, AvgScore:%9.1f, Kills:%4d, DamageInflicted:%7d, DamageAbsorbed:%7d, Nuggets:%5d",
+					name, matches, wins, survivals, getAverageScore(), kills,
+					damageInflicted, damageAbsorbed, nuggetsCount
+			);
+		}
+	}
+}
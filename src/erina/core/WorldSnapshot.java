@@ -0,0 +1,302 @@
+package erina.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.IntPredicate;
+import java.util.function.Supplier;
+
+/**
+ * A copy of the state of all Entities in an Erina at the end of a cycle.
+ *
+ * <p>The Erina publishes a WorldSnapshot at the end of every cycle. Everything
+ * Competitors can read about the Erina, the locations, directions and energy levels of
+ * Entities and all object queries, is answered from the latest WorldSnapshot. Competitors
+ * therefore read a consistent state, while the thread running the Erina keeps modifying
+ * the live {@link EntityStore} and {@link SpatialGrid}.
+ *
+ * <p>The Erina keeps two WorldSnapshots and takes turns updating them, so publishing
+ * allocates nothing while the EntityStore does not grow. An update copies the state of
+ * every Entity but only the cells of the SpatialGrid that changed since the WorldSnapshot
+ * was last updated, two cycles before, so its cost does not depend on the size of the
+ * Erina. Updates are done under the write lock of a StampedLock. Queries read
+ * optimistically, and only take the read lock to read again if an update raced with
+ * them, in which case they answer from the newer state. Each query therefore answers
+ * from the state of a single cycle, but a Competitor holding on to a WorldSnapshot may
+ * read a later cycle from it.
+ *
+ * @version 1.1
+ * @author Eric
+ */
+final class WorldSnapshot {
+
+	private final StampedLock lock = new StampedLock();
+
+	private long cycle;
+
+	// shared with the EntityStore, entries below count never change; the per-id arrays
+	// are as long, so ids read during a racing update are never out of bounds
+	private final Entity<?, ?>[] entities;
+	private int count;
+
+	private final boolean[] inWorld;
+	private final int[] x, y, direction, energy, imageWidth, imageHeight;
+	private final int worldWidth, worldHeight;
+
+	// a copy of the cells of the SpatialGrid, as of generation
+	private final int cellSize, columns, rows;
+	private int maxRadius;
+	private final int[][] cells;
+	private final int[] cellSizes;
+	private int generation = -1;
+
+
+	/**
+	 * Creates an empty WorldSnapshot with room for the Entities in the EntityStore and
+	 * the cells of the SpatialGrid. Call {@link WorldSnapshot#update(long, EntityStore,
+	 * SpatialGrid)} before publishing it.
+	 */
+	WorldSnapshot(EntityStore store, SpatialGrid grid, int worldWidth, int worldHeight) {
+		this.worldWidth = worldWidth;
+		this.worldHeight = worldHeight;
+
+		entities = store.getEntities();
+		final int capacity = entities.length;
+		inWorld = new boolean[capacity];
+		x = new int[capacity];
+		y = new int[capacity];
+		direction = new int[capacity];
+		energy = new int[capacity];
+		imageWidth = new int[capacity];
+		imageHeight = new int[capacity];
+
+		cellSize = grid.getCellSize();
+		columns = grid.getColumns();
+		rows = grid.getRows();
+		cells = new int[columns * rows][];
+		cellSizes = new int[columns * rows];
+	}
+
+
+	/**
+	 * Checks if this WorldSnapshot can be updated from the EntityStore, that is, the
+	 * EntityStore has not grown since this WorldSnapshot was created.
+	 */
+	boolean fits(EntityStore store) { return store.getEntities() == entities; }
+
+	/**
+	 * Copies the state in the specified EntityStore and SpatialGrid. Only the thread
+	 * running the Erina may call this.
+	 * @param cycle	the cycle the state belongs to
+	 */
+	void update(long cycle, EntityStore store, SpatialGrid grid) {
+		final long stamp = lock.writeLock();
+		try {
+			this.cycle = cycle;
+			count = store.size();
+			store.copyTo(inWorld, x, y, direction, energy, imageWidth, imageHeight);
+
+			maxRadius = grid.getMaxRadius();
+			grid.copyCells(generation, cells, cellSizes);
+			generation = grid.getGeneration();
+		}
+		finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 * Runs the reader optimistically, and again under the read lock if an update raced
+	 * with it.
+	 */
+	private <R> R read(Supplier<R> reader) {
+		long stamp = lock.tryOptimisticRead();
+		R result = reader.get();
+
+		if (!lock.validate(stamp)) {
+			stamp = lock.readLock();
+			try {
+				result = reader.get();
+			}
+			finally {
+				lock.unlockRead(stamp);
+			}
+		}
+		return result;
+	}
+
+
+	/** Returns the cycle this WorldSnapshot was taken at. */
+	long getCycle() { return cycle; }
+
+	/** Checks if this WorldSnapshot holds the state of the Entity with the specified id. */
+	boolean covers(int id) { return id < count; }
+
+	int getX(int id) { return x[id]; }
+
+	int getY(int id) { return y[id]; }
+
+	int getDirection(int id) { return direction[id]; }
+
+	int getEnergy(int id) { return energy[id]; }
+
+	boolean isInWorld(int id) { return inWorld[id]; }
+
+	/** @see	EntityStore#isAtEdge(int) */
+	boolean isAtEdge(int id) {
+		return read(() -> x[id] <= 0 || y[id] <= 0
+				|| x[id] >= worldWidth - 1 || y[id] >= worldHeight - 1);
+	}
+
+	/** @see	EntityStore#intersects(int, int) */
+	boolean intersects(int a, int b) { return read(() -> overlap(a, b)); }
+
+	private boolean overlap(int a, int b) {
+		return EntityStore.intersects(
+				x[a], y[a], direction[a], imageWidth[a], imageHeight[a],
+				x[b], y[b], direction[b], imageWidth[b], imageHeight[b]);
+	}
+
+	private boolean contains(int id, int x, int y) {
+		return EntityStore.contains(this.x[id], this.y[id], direction[id],
+				imageWidth[id], imageHeight[id], x, y);
+	}
+
+	private int getRadius(int id) {
+		return (int) Math.ceil(Math.hypot(imageWidth[id], imageHeight[id]) / 2);
+	}
+
+
+	/**
+	 * Returns all Entities of the specified type in the Erina.
+	 * @see	greenfoot.World#getObjects(Class)
+	 */
+	<T> List<T> getEntities(Class<T> cls) {
+		Objects.requireNonNull(cls);
+
+		return read(() -> {
+			final List<T> result = new ArrayList<>();
+			for (int id = 0; id < count; id++) {
+				if (inWorld[id] && cls.isInstance(entities[id]))
+					result.add(cls.cast(entities[id]));
+			}
+			return result;
+		});
+	}
+
+	/**
+	 * Returns all Entities of the specified type intersecting the Entity with the
+	 * specified id, excluding the Entity itself.
+	 * @see	greenfoot.Actor#getIntersectingObjects(Class)
+	 */
+	<T> List<T> getIntersecting(int id, Class<T> cls) {
+		Objects.requireNonNull(cls);
+
+		return read(() -> {
+			if (!inWorld[id])
+				return new ArrayList<>();
+
+			final int reach = getRadius(id) + maxRadius;
+			return collect(x[id], y[id], reach, id, cls, other -> overlap(id, other));
+		});
+	}
+
+	/**
+	 * Returns all Entities of the specified type whose centres are within the specified
+	 * distance of the centre of the Entity with the specified id, excluding the Entity
+	 * itself.
+	 * @see	greenfoot.Actor#getObjectsInRange(int, Class)
+	 */
+	<T> List<T> getInRange(int id, int radius, Class<T> cls) {
+		Objects.requireNonNull(cls);
+		final long radiusSquared = (long) radius * radius;
+
+		return read(() -> {
+			if (!inWorld[id])
+				return new ArrayList<>();
+
+			final int x = this.x[id], y = this.y[id];
+			return collect(x, y, radius, id, cls, other -> {
+				final long dx = this.x[other] - x, dy = this.y[other] - y;
+				return dx * dx + dy * dy <= radiusSquared;
+			});
+		});
+	}
+
+	/**
+	 * Returns all Entities of the specified type located within the specified distance of
+	 * the Entity with the specified id, excluding the Entity itself. The distance is
+	 * measured in cells along both axes if {@code diagonal} is true, or along one axis at
+	 * a time otherwise.
+	 * @see	greenfoot.Actor#getNeighbours(int, boolean, Class)
+	 */
+	<T> List<T> getNeighbours(int id, int distance, boolean diagonal, Class<T> cls) {
+		Objects.requireNonNull(cls);
+
+		return read(() -> {
+			if (!inWorld[id])
+				return new ArrayList<>();
+
+			final int x = this.x[id], y = this.y[id];
+			return collect(x, y, distance, id, cls, other -> {
+				final int dx = Math.abs(this.x[other] - x), dy = Math.abs(this.y[other] - y);
+				return diagonal ? Math.max(dx, dy) <= distance : dx + dy <= distance;
+			});
+		});
+	}
+
+	/**
+	 * Returns all Entities of the specified type whose images cover the specified
+	 * location, excluding the Entity with the specified id.
+	 * @param excludedId	the id of the Entity to exclude, -1 to exclude none
+	 * @see	greenfoot.World#getObjectsAt(int, int, Class)
+	 */
+	<T> List<T> getAt(int x, int y, int excludedId, Class<T> cls) {
+		Objects.requireNonNull(cls);
+
+		return read(() ->
+				collect(x, y, maxRadius, excludedId, cls, other -> contains(other, x, y)));
+	}
+
+
+	/**
+	 * Collects the Entities of the specified type in all cells within {@code reach} of
+	 * the specified location that pass the test, excluding the specified id. Only called
+	 * through {@link WorldSnapshot#read(Supplier)}.
+	 */
+	private <T> List<T> collect(int x, int y, int reach, int excludedId,
+								Class<T> cls, IntPredicate test) {
+		final List<T> result = new ArrayList<>();
+
+		final int minColumn = columnOf(x - reach), maxColumn = columnOf(x + reach);
+		final int minRow = rowOf(y - reach), maxRow = rowOf(y + reach);
+
+		for (int row = minRow; row <= maxRow; row++) {
+			for (int column = minColumn; column <= maxColumn; column++) {
+				final int cell = row * columns + column;
+				final int[] ids = cells[cell];
+				if (ids == null) continue;
+
+				// an update racing with this read may have grown the cell
+				final int size = Math.min(cellSizes[cell], ids.length);
+				for (int i = 0; i < size; i++) {
+					final int other = ids[i];
+					if (other != excludedId && test.test(other)
+							&& cls.isInstance(entities[other]))
+						result.add(cls.cast(entities[other]));
+				}
+			}
+		}
+
+		return result;
+	}
+
+	private int columnOf(int x) {
+		return Math.max(0, Math.min(columns - 1, Math.floorDiv(x, cellSize)));
+	}
+
+	private int rowOf(int y) {
+		return Math.max(0, Math.min(rows - 1, Math.floorDiv(y, cellSize)));
+	}
+}
@@ -0,0 +1,46 @@
+package erina.load;
+
+import erina.core.Erina;
+import erina.core.Maneuver;
+
+/**
+ * A Competitor allocating a fixed amount of memory for every Maneuver before wandering
+ * about. The last few allocations are kept, so that some outlive the young generation;
+ * Allocators put the garbage collector and its pauses into a match.
+ *
+ * @version 1.0
+ * @author Eric
+ */
+public class Allocator extends SyntheticCompetitor {
+
+	private final int bytes;
+	// the most recent allocations, oldest replaced first
+	private final byte[][] retained;
+	private int next = 0;
+
+	/**
+	 * Constructs a new Allocator.
+	 * @param world	the world this competitor is in
+	 * @param name	the name of this Competitor
+	 * @param bytes	the number of bytes allocated for each Maneuver
+	 * @param retained	the number of most recent allocations kept, at least 1 so that
+	 * allocations are not optimized away
+	 * @throws IllegalArgumentException	if bytes is negative or retained is less than 1
+	 */
+	public Allocator(Erina world, String name, int bytes, int retained) {
+		super(world, name);
+		if (bytes < 0 || retained < 1)
+			throw new IllegalArgumentException(
+					"Illegal allocation: " + bytes + " bytes, " + retained + " retained");
+		this.bytes = bytes;
+		this.retained = new byte[retained][];
+	}
+
+	@Override
+	public Maneuver doManeuver() {
+		retained[next] = new byte[bytes];
+		next = (next + 1) % retained.length;
+
+		return wander(newManeuver(), 2, 20);
+	}
+}
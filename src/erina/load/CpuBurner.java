@@ -0,0 +1,43 @@
+package erina.load;
+
+import erina.core.Erina;
+import erina.core.Maneuver;
+
+/**
+ * A Competitor doing a fixed amount of busy work for every Maneuver before wandering
+ * about. CpuBurners keep the threads running Competitors busy, for loading the
+ * ManeuverFetcher and trying out time budgets.
+ *
+ * @version 1.0
+ * @author Eric
+ * @see	erina.core.ErinaConfig.Builder#timeBudget(java.time.Duration)
+ */
+public class CpuBurner extends SyntheticCompetitor {
+
+	private final int work;
+
+	/**
+	 * Constructs a new CpuBurner.
+	 * @param world	the world this competitor is in
+	 * @param name	the name of this Competitor
+	 * @param work	the number of rounds of busy work for each Maneuver, each a handful
+	 * of arithmetic operations
+	 */
+	public CpuBurner(Erina world, String name, int work) {
+		super(world, name);
+		this.work = work;
+	}
+
+	@Override
+	public Maneuver doManeuver() {
+		// xorshift, the result decides the turn so that the work cannot be left out
+		long x = getRandom().nextLong() | 1;
+		for (int i = 0; i < work; i++) {
+			x ^= x << 13;
+			x ^= x >>> 7;
+			x ^= x << 17;
+		}
+
+		return newManeuver().turn((int) (x & 15) - 8).move(2);
+	}
+}
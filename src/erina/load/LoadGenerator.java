@@ -0,0 +1,206 @@
+package erina.load;
+
+import erina.core.Competitor;
+import erina.core.Erina;
+import erina.core.ErinaConfig;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.function.BiFunction;
+
+/**
+ * Fills a match with synthetic Competitors, mixing kinds of Competitors by weight. For
+ * example, a match of 5000 Competitors of which a fifth swarm and a tenth burn CPU:
+ *
+ * <pre>
+ *   final LoadGenerator load = LoadGenerator.parse("walker:7,swarmer:2,cpu:1");
+ *   final Erina erina = new Erina(config) {
+ *       &#64;Override
+ *       protected List&lt;Competitor&gt; prepareCompetitors() {
+ *           return load.generate(this, 5000);
+ *       }
+ *   };
+ * </pre>
+ *
+ * <p>Kinds are registered with a name, a weight and a factory, like the entrants of a
+ * {@link erina.core.Tournament}. Competitors are handed out in smooth weighted round
+ * robin, so each kind gets its share of the Competitors however many are generated, and
+ * the kinds are spread evenly around the rings Competitors start on. Generating is
+ * deterministic: the same LoadGenerator generates the same line-up every time.
+ *
+ * @version 1.0
+ * @author Eric
+ */
+public final class LoadGenerator {
+
+	private final Map<String, Kind> kinds = new LinkedHashMap<>();
+
+
+	/**
+	 * Returns a LoadGenerator mixing the built-in kinds with the specified weights.
+	 * The built-in kinds are:
+	 * <pre>
+	 *   walker   RandomWalker, moving 3 and turning up to 30 degrees
+	 *   swarmer  Swarmer, moving 4 and seeing 400 pixels
+	 *   seeker   NuggetSeeker, moving 3 and seeing 400 pixels
+	 *   cpu      CpuBurner, 100000 rounds of busy work
+	 *   alloc    Allocator, 64 KiB for each Maneuver, keeping the last 16
+	 * </pre>
+	 * @param mix	the kinds and their weights, each separated by a colon, pairs
+	 * separated by commas, such as {@code "walker:7,swarmer:2,cpu:1"}
+	 * @return	the LoadGenerator
+	 * @throws IllegalArgumentException	if the mix is malformed or names an unknown kind
+	 */
+	public static LoadGenerator parse(String mix) {
+		final LoadGenerator generator = new LoadGenerator();
+		for (String pair : mix.split(",")) {
+			final String[] fields = pair.trim().split(":");
+			if (fields.length != 2)
+				throw new IllegalArgumentException("Illegal kind and weight: " + pair);
+
+			final double weight;
+			try {
+				weight = Double.parseDouble(fields[1].trim());
+			}
+			catch (NumberFormatException e) {
+				throw new IllegalArgumentException("Illegal kind and weight: " + pair, e);
+			}
+
+			final String name = fields[0].trim();
+			generator.addKind(name, weight, builtIn(name));
+		}
+		return generator;
+	}
+
+	private static BiFunction<Erina, String, Competitor> builtIn(String name) {
+		switch (name) {
+			case "walker": return (world, n) -> new RandomWalker(world, n, 3, 30);
+			case "swarmer": return (world, n) -> new Swarmer(world, n, 4, 400);
+			case "seeker": return (world, n) -> new NuggetSeeker(world, n, 3, 400);
+			case "cpu": return (world, n) -> new CpuBurner(world, n, 100_000);
+			case "alloc": return (world, n) -> new Allocator(world, n, 64 * 1024, 16);
+			default: throw new IllegalArgumentException("Unknown kind: " + name);
+		}
+	}
+
+
+	/**
+	 * Registers a kind of Competitor. The factory is invoked for every Competitor of the
+	 * kind, with the Erina and the name of the Competitor: the name of the kind followed
+	 * by a number counting up from 0.
+	 * @param name	the name of the kind
+	 * @param weight	the weight of the kind, relative to the weights of the other kinds
+	 * @param factory	creates a Competitor of the kind
+	 * @return	this instance
+	 * @throws IllegalArgumentException	if the weight is not positive and finite, or a
+	 * kind with the same name already exists
+	 */
+	public LoadGenerator addKind(
+			String name, double weight, BiFunction<Erina, String, Competitor> factory) {
+		Objects.requireNonNull(name);
+		Objects.requireNonNull(factory);
+		if (!(weight > 0) || Double.isInfinite(weight))
+			throw new IllegalArgumentException("Illegal weight: " + weight);
+
+		if (kinds.putIfAbsent(name, new Kind(name, weight, factory)) != null)
+			throw new IllegalArgumentException("Duplicated kind: " + name);
+
+		return this;
+	}
+
+	/**
+	 * Returns the names of all registered kinds in the order of registration.
+	 */
+	public List<String> getKinds() { return new ArrayList<>(kinds.keySet()); }
+
+
+	/**
+	 * Creates the specified number of Competitors for the Erina, meant to be returned
+	 * from {@link Erina#prepareCompetitors()}.
+	 * @param world	the Erina the Competitors are in
+	 * @param count	the number of Competitors
+	 * @return	a new List of the Competitors
+	 * @throws IllegalStateException	if no kind is registered
+	 */
+	public List<Competitor> generate(Erina world, int count) {
+		if (kinds.isEmpty())
+			throw new IllegalStateException("No kinds registered");
+
+		final Kind[] all = kinds.values().toArray(new Kind[0]);
+		double total = 0;
+		for (Kind kind : all)
+			total += kind.weight;
+
+		// each round, every kind earns its weight and the richest pays the total for
+		// the next Competitor
+		final double[] credits = new double[all.length];
+		final int[] counts = new int[all.length];
+
+		final List<Competitor> competitors = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			int richest = 0;
+			for (int k = 0; k < all.length; k++) {
+				credits[k] += all[k].weight;
+				if (credits[k] > credits[richest])
+					richest = k;
+			}
+			credits[richest] -= total;
+
+			final Kind kind = all[richest];
+			competitors.add(kind.factory.apply(world, kind.name + counts[richest]++));
+		}
+		return competitors;
+	}
+
+
+	/**
+	 * Plays a single headless match of synthetic Competitors.
+	 * Usage: LoadGenerator &lt;count&gt; &lt;mix&gt; [config &lt;properties file&gt;]
+	 * [&lt;setting&gt; &lt;value&gt;]...
+	 * where the mix is as in {@link LoadGenerator#parse(String)} and the settings are
+	 * those of {@link ErinaConfig.Builder#set(String, String)}, for example
+	 * "5000 walker:7,swarmer:2,cpu:1 width 20000 height 20000 profiling true".
+	 */
+	public static void main(String[] args) throws IOException {
+		// settings come in pairs after the count and the mix
+		if (args.length < 2 || args.length % 2 != 0)
+			throw new IllegalArgumentException("Usage: LoadGenerator <count> <mix> "
+					+ "[config <properties file>] [<setting> <value>]...");
+
+		final int count = Integer.parseInt(args[0]);
+		final LoadGenerator load = LoadGenerator.parse(args[1]);
+
+		final ErinaConfig.Builder config = new ErinaConfig.Builder().headless(true);
+		for (int i = 2; i < args.length; i += 2) {
+			if (args[i].equals("config"))
+				config.load(Paths.get(args[i+1]));
+			else
+				config.set(args[i], args[i+1]);
+		}
+
+		new Erina(config.build()) {
+			@Override
+			protected List<Competitor> prepareCompetitors() {
+				return load.generate(this, count);
+			}
+		}.run();
+	}
+
+
+	/**
+	 * A registered kind of Competitor.
+	 */
+	private static final class Kind {
+		private final String name;
+		private final double weight;
+		private final BiFunction<Erina, String, Competitor> factory;
+
+		private Kind(String name, double weight,
+		             BiFunction<Erina, String, Competitor> factory) {
+			this.name = name;
+			this.weight = weight;
+			this.factory = factory;
+		}
+	}
+}
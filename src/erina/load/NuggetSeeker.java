@@ -0,0 +1,42 @@
+package erina.load;
+
+import erina.core.Erina;
+import erina.core.Maneuver;
+import erina.core.Nugget;
+
+/**
+ * A Competitor heading for the closest Nugget in range, wandering while there is none.
+ * Seekers crowd around Nuggets as they spawn, which keeps Nugget consumption and the
+ * spawning of new Nuggets busy.
+ *
+ * @version 1.0
+ * @author Eric
+ */
+public class NuggetSeeker extends SyntheticCompetitor {
+
+	private final int step, range;
+
+	/**
+	 * Constructs a new NuggetSeeker.
+	 * @param world	the world this competitor is in
+	 * @param name	the name of this Competitor
+	 * @param step	the distance moved each cycle
+	 * @param range	how far away Nuggets are seen
+	 */
+	public NuggetSeeker(Erina world, String name, int step, int range) {
+		super(world, name);
+		this.step = step;
+		this.range = range;
+	}
+
+	@Override
+	public Maneuver doManeuver() {
+		final Maneuver maneuver = newManeuver();
+
+		final Nugget target = closest(getObjectsInRange(range, Nugget.class));
+		if (target != null)
+			return approach(maneuver, step, target);
+
+		return wander(maneuver, step, 30);
+	}
+}
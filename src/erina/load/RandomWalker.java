@@ -0,0 +1,34 @@
+package erina.load;
+
+import erina.core.Erina;
+import erina.core.Maneuver;
+
+/**
+ * A Competitor wandering about at random. It neither looks for nor avoids anything, so
+ * it only meets others by chance.
+ *
+ * @version 1.0
+ * @author Eric
+ */
+public class RandomWalker extends SyntheticCompetitor {
+
+	private final int step, maxTurn;
+
+	/**
+	 * Constructs a new RandomWalker.
+	 * @param world	the world this competitor is in
+	 * @param name	the name of this Competitor
+	 * @param step	the distance moved each cycle
+	 * @param maxTurn	the largest angle in degrees turned by each cycle, either way
+	 */
+	public RandomWalker(Erina world, String name, int step, int maxTurn) {
+		super(world, name);
+		this.step = step;
+		this.maxTurn = maxTurn;
+	}
+
+	@Override
+	public Maneuver doManeuver() {
+		return wander(newManeuver(), step, maxTurn);
+	}
+}
@@ -0,0 +1,43 @@
+package erina.load;
+
+import erina.core.Competitor;
+import erina.core.Erina;
+import erina.core.Maneuver;
+
+/**
+ * A Competitor heading for the closest Competitor in range, or for the center of the
+ * Erina when there is none. Swarmers gather and run into each other on purpose, which
+ * keeps the collision handling busy.
+ *
+ * @version 1.0
+ * @author Eric
+ */
+public class Swarmer extends SyntheticCompetitor {
+
+	private final int step, range;
+
+	/**
+	 * Constructs a new Swarmer.
+	 * @param world	the world this competitor is in
+	 * @param name	the name of this Competitor
+	 * @param step	the distance moved each cycle
+	 * @param range	how far away other Competitors are seen
+	 */
+	public Swarmer(Erina world, String name, int step, int range) {
+		super(world, name);
+		this.step = step;
+		this.range = range;
+	}
+
+	@Override
+	public Maneuver doManeuver() {
+		final Maneuver maneuver = newManeuver();
+
+		final Competitor target = closest(getObjectsInRange(range, Competitor.class));
+		if (target != null)
+			return approach(maneuver, step, target);
+
+		return maneuver.turnTowards(getWorld().getWidth() / 2, getWorld().getHeight() / 2)
+				.move(step);
+	}
+}
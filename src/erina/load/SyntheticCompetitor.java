@@ -0,0 +1,78 @@
+package erina.load;
+
+import erina.core.Competitor;
+import erina.core.Entity;
+import erina.core.Erina;
+import erina.core.Maneuver;
+
+import java.util.List;
+
+/**
+ * The super class of the synthetic Competitors in this package. Synthetic Competitors
+ * behave in one simple, parameterized way each, so that a line-up of them puts a known
+ * kind of load on the Erina. They only draw from {@link Competitor#getRandom()}, so the
+ * same line-up with the same seed behaves the same.
+ *
+ * @version 1.0
+ * @author Eric
+ * @see	LoadGenerator
+ */
+public abstract class SyntheticCompetitor extends Competitor {
+
+	/**
+	 * Constructs a new SyntheticCompetitor with the specified name.
+	 * @param world	the world this competitor is in
+	 * @param name	the name of this Competitor
+	 */
+	protected SyntheticCompetitor(Erina world, String name) {
+		super(world, name);
+		setImage("images/jellybean1.png");
+	}
+
+
+	/**
+	 * Turns by a random angle of at most {@code maxTurn} degrees either way, then moves.
+	 * @param maneuver	the Maneuver to add to
+	 * @param step	the distance to move
+	 * @param maxTurn	the largest angle to turn by
+	 * @return	the Maneuver
+	 */
+	protected final Maneuver wander(Maneuver maneuver, int step, int maxTurn) {
+		if (maxTurn > 0)
+			maneuver.turn(getRandom().nextInt(2 * maxTurn + 1) - maxTurn);
+		return maneuver.move(step);
+	}
+
+	/**
+	 * Turns toward the specified Entity, then moves.
+	 * @param maneuver	the Maneuver to add to
+	 * @param step	the distance to move
+	 * @param target	the Entity to head for
+	 * @return	the Maneuver
+	 */
+	protected final Maneuver approach(Maneuver maneuver, int step, Entity<?, ?> target) {
+		return maneuver.turnTowards(target.getX(), target.getY()).move(step);
+	}
+
+	/**
+	 * Returns the Entity closest to this Competitor, or null if there is none.
+	 * @param entities	the Entities to choose from
+	 * @param <T>	the type of the Entities
+	 * @return	the closest Entity, or null
+	 */
+	protected final <T extends Entity<?, ?>> T closest(List<T> entities) {
+		final int x = getX(), y = getY();
+
+		T closest = null;
+		long closestDistance = Long.MAX_VALUE;
+		for (T entity : entities) {
+			final long dx = entity.getX() - x, dy = entity.getY() - y;
+			final long distance = dx * dx + dy * dy;
+			if (distance < closestDistance) {
+				closest = entity;
+				closestDistance = distance;
+			}
+		}
+		return closest;
+	}
+}
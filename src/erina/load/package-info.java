@@ -0,0 +1,8 @@
+/**
+ * This package contains synthetic Competitors for putting controlled load on the Erina,
+ * and the LoadGenerator filling matches with them.
+ *
+ * @version alpha
+ * @author Eric
+ */
+package erina.load;
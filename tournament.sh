@@ -0,0 +1,13 @@
+#!/bin/bash
+
+# plays many matches without Greenfoot, see Tournament#main
+
+# classpath, compiled stuff
+CP="bin/"
+
+# greenfoot lib
+for dir in $(find lib -type d); do
+	CP="$CP:$dir/*";
+done;
+
+java -Djava.awt.headless=true -cp "$CP" Tournament $@